@@ -11,10 +11,16 @@ import sumogame.controller.GameScreenController;
 import sumogame.controller.ResultsScreenController;
 import sumogame.model.CharacterType;
 import sumogame.model.GameState;
+import sumogame.network.service.Transport;
 
 public class Main extends Application {
+    // Порт, под которым хост локальной игры ждет второго игрока (сокет не открывается)
+    private static final int LOCAL_MATCH_PORT = 0;
+
     private Stage primaryStage;
     private GameController gameController;
+    // второй игрок локальной игры вдвоем
+    private GameController localGuestController;
     private boolean isServerMode;
 
     @Override
@@ -25,6 +31,10 @@ public class Main extends Application {
         primaryStage.setMinWidth(900);
         primaryStage.setMinHeight(700);
 
+        // В фоне и в свернутом окне кадры рисуются реже или не рисуются вовсе
+        primaryStage.focusedProperty().addListener((obs, oldValue, newValue) -> updatePowerMode());
+        primaryStage.iconifiedProperty().addListener((obs, oldValue, newValue) -> updatePowerMode());
+
         showCharacterSelection();
         primaryStage.show();
     }
@@ -46,11 +56,30 @@ public class Main extends Application {
     }
 
     public void returnToMainMenu() {
+        stopControllers();
+        showCharacterSelection();
+    }
+
+    private void stopControllers() {
         if (gameController != null) {
             gameController.stop();
             gameController = null;
         }
-        showCharacterSelection();
+        if (localGuestController != null) {
+            localGuestController.stop();
+            localGuestController = null;
+        }
+    }
+
+    private void updatePowerMode() {
+        boolean focused = primaryStage.isFocused();
+        boolean iconified = primaryStage.isIconified();
+        if (gameController != null) {
+            gameController.getFrameScheduler().setWindowState(focused, iconified);
+        }
+        if (localGuestController != null) {
+            localGuestController.getFrameScheduler().setWindowState(focused, iconified);
+        }
     }
 
     private void showError(String message) {
@@ -103,10 +132,7 @@ public class Main extends Application {
             Scene scene = new Scene(root, 1000, 700);
             primaryStage.setScene(scene);
 
-            if (gameController != null) {
-                gameController.stop();
-                gameController = null;
-            }
+            stopControllers();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -134,7 +160,9 @@ public class Main extends Application {
 
             Scene gameScene = new Scene(root, 1000, 700);
             gameScene.setOnKeyPressed(gameScreenController::handleKeyPressed);
+            gameScene.setOnKeyReleased(gameScreenController::handleKeyReleased);
             primaryStage.setScene(gameScene);
+            updatePowerMode();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -161,11 +189,47 @@ public class Main extends Application {
 
             Scene gameScene = new Scene(root, 1000, 700);
             gameScene.setOnKeyPressed(gameScreenController::handleKeyPressed);
+            gameScene.setOnKeyReleased(gameScreenController::handleKeyReleased);
             primaryStage.setScene(gameScene);
+            updatePowerMode();
 
         } catch (Exception e) {
             e.printStackTrace();
             showError("Не удалось подключиться к серверу: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Игра вдвоем за одной клавиатурой: хост и клиент в одном процессе, связаны без сети
+    public void startLocalMatch(CharacterType player1Character, CharacterType player2Character) {
+        this.isServerMode = true;
+        System.out.println("Локальная игра: " + player1Character.getName() + " против " + player2Character.getName());
+
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/sumogame/view/game-screen.fxml"));
+            Parent root = loader.load();
+
+            GameScreenController gameScreenController = loader.getController();
+
+            gameController = new GameController(true, player1Character, null, LOCAL_MATCH_PORT, Transport.LOOPBACK);
+            gameController.setMainApp(this);
+            localGuestController = new GameController(false, player2Character, null, LOCAL_MATCH_PORT, Transport.LOOPBACK);
+
+            gameScreenController.setGameController(gameController);
+            gameScreenController.setSecondPlayerController(localGuestController);
+            gameController.startGame();
+            localGuestController.startGame();
+            gameController.setGameRenderer(gameScreenController.getGameRenderer());
+            localGuestController.startWithoutRenderer();
+
+            Scene gameScene = new Scene(root, 1000, 700);
+            gameScene.setOnKeyPressed(gameScreenController::handleKeyPressed);
+            gameScene.setOnKeyReleased(gameScreenController::handleKeyReleased);
+            primaryStage.setScene(gameScene);
+            updatePowerMode();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            showError("Не удалось запустить локальную игру: " + e.getMessage());
+        }
+    }
+}
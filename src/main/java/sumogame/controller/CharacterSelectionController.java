@@ -4,6 +4,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -282,6 +283,39 @@ public class CharacterSelectionController {
         });
     }
 
+    @FXML
+    private void handleLocalMatch() {
+        System.out.println("Нажата кнопка: Вдвоем");
+        System.out.println("Персонаж первого игрока: " + selectedCharacter.getName());
+
+        // Первый игрок берет выбранного персонажа, второй выбирает в диалоге
+        java.util.List<String> names = new java.util.ArrayList<>();
+        for (CharacterType type : CharacterType.values()) {
+            names.add(type.getName());
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(names.get(0), names);
+        dialog.setTitle("🌸 Игра вдвоем");
+        dialog.setHeaderText("Второй игрок (стрелки + ENTER), выберите персонажа:");
+        dialog.setContentText("Персонаж:");
+
+        dialog.getDialogPane().setStyle("-fx-background-color: #FFF0F5;");
+        dialog.getDialogPane().lookupButton(ButtonType.OK).setStyle(
+                "-fx-background-color: linear-gradient(to bottom, #FF69B4, #DB7093); " +
+                        "-fx-text-fill: white; -fx-font-weight: bold;"
+        );
+        dialog.getDialogPane().lookupButton(ButtonType.CANCEL).setStyle(
+                "-fx-background-color: linear-gradient(to bottom, #D8BFD8, #DDA0DD); " +
+                        "-fx-text-fill: white; -fx-font-weight: bold;"
+        );
+
+        dialog.showAndWait().ifPresent(name -> {
+            CharacterType secondCharacter = CharacterType.values()[names.indexOf(name)];
+            if (main != null) {
+                main.startLocalMatch(selectedCharacter, secondCharacter);
+            }
+        });
+    }
+
     private void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("🌸 Ошибка");
@@ -0,0 +1,168 @@
+package sumogame.controller;
+
+import javafx.animation.AnimationTimer;
+import sumogame.model.GameConfig;
+
+import java.util.Arrays;
+
+/**
+ * Один AnimationTimer на кадр вместо отдельных таймеров симуляции, отрисовки и HUD.
+ * Фазы выполняются всегда в одном порядке: ввод, симуляция, публикация кадра, отрисовка, HUD.
+ * Время каждой фазы копится и раз в 10 секунд пишется в лог (среднее и максимум за кадр).
+ * Фазы показа (публикация, отрисовка, HUD) можно ограничить по частоте: -Dsumogame.fpsCap,
+ * в окне без фокуса - sumogame.lowPowerFps, в свернутом окне они не выполняются вовсе.
+ */
+public class FrameScheduler {
+    public enum Phase {
+        INPUT("ввод"),
+        SIMULATE("симуляция"),
+        PUBLISH("публикация"),
+        RENDER("отрисовка"),
+        HUD("HUD");
+
+        private final String title;
+
+        Phase(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    // now - время импульса AnimationTimer (System.nanoTime), одно для всех фаз кадра
+    public interface FrameTask {
+        void run(long now);
+    }
+
+    private static final long STATS_INTERVAL_NANOS = 10_000_000_000L;
+    private static final Phase[] PHASES = Phase.values();
+    // Импульсы AnimationTimer идут неровно, без допуска ограничение 60 давало бы около 30 кадров
+    private static final long CAP_SLACK_NANOS = 2_000_000L;
+
+    private final String name;
+    private final FrameTask[] tasks = new FrameTask[PHASES.length];
+    private final long[] lastNanos = new long[PHASES.length];
+    private final long[] totalNanos = new long[PHASES.length];
+    private final long[] maxNanos = new long[PHASES.length];
+    private int frames;
+    private int presented;
+    private long statsStart;
+    private long lastPresent;
+    private boolean running;
+    private boolean lowPower;
+    private boolean hidden;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            runFrame(now);
+        }
+    };
+
+    public FrameScheduler(String name) {
+        this.name = name;
+    }
+
+    // null убирает фазу
+    public void setTask(Phase phase, FrameTask task) {
+        tasks[phase.ordinal()] = task;
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        statsStart = 0;
+        timer.start();
+        System.out.println("Кадры (" + name + "): планировщик запущен");
+    }
+
+    // Можно вызывать из любой фазы: оставшиеся фазы кадра уже не выполнятся
+    public void stop() {
+        if (!running) return;
+        running = false;
+        timer.stop();
+        Arrays.fill(tasks, null);
+        System.out.println("Кадры (" + name + "): планировщик остановлен");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Состояние окна: без фокуса рисуем реже, свернутое окно не рисуем
+    public void setWindowState(boolean focused, boolean iconified) {
+        if (lowPower == !focused && hidden == iconified) return;
+        lowPower = !focused;
+        hidden = iconified;
+        lastPresent = 0;
+        String mode = hidden ? "окно свернуто, отрисовка остановлена"
+                : lowPower ? "окно без фокуса, до " + GameConfig.LOW_POWER_FPS + " кадров/с"
+                : GameConfig.FPS_CAP > 0 ? "до " + GameConfig.FPS_CAP + " кадров/с" : "без ограничения";
+        System.out.println("Кадры (" + name + "): " + mode);
+    }
+
+    // Выполнять ли в этом импульсе фазы показа
+    private boolean shouldPresent(long now) {
+        if (hidden) return false;
+        int cap = lowPower ? GameConfig.LOW_POWER_FPS : GameConfig.FPS_CAP;
+        if (cap <= 0) return true;
+        return now - lastPresent >= 1_000_000_000L / cap - CAP_SLACK_NANOS;
+    }
+
+    private void runFrame(long now) {
+        if (statsStart == 0) {
+            statsStart = now;
+        }
+
+        boolean present = shouldPresent(now);
+        if (present) {
+            lastPresent = now;
+            presented++;
+        }
+
+        for (int i = 0; i < PHASES.length; i++) {
+            if (!running) return;
+            if (!present && i >= Phase.PUBLISH.ordinal()) break;
+            FrameTask task = tasks[i];
+            if (task == null) continue;
+
+            long start = System.nanoTime();
+            task.run(now);
+            long spent = System.nanoTime() - start;
+            lastNanos[i] = spent;
+            totalNanos[i] += spent;
+            if (spent > maxNanos[i]) {
+                maxNanos[i] = spent;
+            }
+        }
+        frames++;
+
+        if (now - statsStart >= STATS_INTERVAL_NANOS) {
+            logStats();
+            Arrays.fill(totalNanos, 0);
+            Arrays.fill(maxNanos, 0);
+            frames = 0;
+            presented = 0;
+            statsStart = now;
+        }
+    }
+
+    // Длительность фазы в последнем кадре, мс
+    public double getLastMillis(Phase phase) {
+        return lastNanos[phase.ordinal()] / 1_000_000.0;
+    }
+
+    private void logStats() {
+        StringBuilder line = new StringBuilder("Кадры (").append(name).append("): ").append(frames).append(" шт, показано ").append(presented);
+        for (int i = 0; i < PHASES.length; i++) {
+            if (tasks[i] == null) continue;
+            // фазы показа считаем только по кадрам, в которых они выполнялись
+            int runs = Math.max(1, i >= Phase.PUBLISH.ordinal() ? presented : frames);
+            line.append(", ").append(PHASES[i].getTitle()).append(' ')
+                    .append(String.format("%.2f/%.2f", totalNanos[i] / 1_000_000.0 / runs, maxNanos[i] / 1_000_000.0));
+        }
+        System.out.println(line.append(" мс (среднее/макс)"));
+    }
+}
@@ -0,0 +1,34 @@
+package sumogame.controller;
+
+import javafx.application.Platform;
+import sumogame.engine.GameEventListener;
+
+/**
+ * Адаптер для JavaFX: переносит события движка в FX поток.
+ * Сам движок остается чистой Java и может работать без запущенного тулкита.
+ */
+public class FxGameEventListener implements GameEventListener {
+    private final GameEventListener delegate;
+
+    public FxGameEventListener(GameEventListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onRoundResult(int winnerId) {
+        runOnFxThread(() -> delegate.onRoundResult(winnerId));
+    }
+
+    @Override
+    public void onMatchFinished() {
+        runOnFxThread(delegate::onMatchFinished);
+    }
+
+    private void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+}
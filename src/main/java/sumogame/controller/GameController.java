@@ -1,26 +1,36 @@
 package sumogame.controller;
 
-import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
 import sumogame.Main;
+import sumogame.controller.FrameScheduler.Phase;
+import sumogame.engine.FixedStepLoop;
 import sumogame.engine.GameEngine;
+import sumogame.engine.GameEventListener;
 import sumogame.model.*;
 import sumogame.network.NetworkManager;
-import sumogame.view.GameRenderer;
+import sumogame.network.message.Message;
+import sumogame.network.message.PlayerMove;
+import sumogame.network.service.LatencyEstimator;
+import sumogame.network.service.Transport;
+import sumogame.view.MatchRenderer;
 
-public class GameController {
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GameController implements GameEventListener {
     private GameEngine gameEngine;
     private NetworkManager networkManager;
-    private GameRenderer gameRenderer;
-    private AnimationTimer gameLoop;
-    private AnimationTimer renderLoop;
+    private MatchRenderer gameRenderer;
+    // ввод, симуляция, публикация кадра, отрисовка и HUD - в одном импульсе FX в этом порядке
+    private final FrameScheduler frameScheduler;
+    private FixedStepLoop fixedStepLoop;
+    private long publishedTick = -1;
+    private volatile double renderAlpha = 1.0; // доля между последним и следующим тиком
     private boolean isServer;
     private String serverAddress;
     private Main mainApp;
     private int port;
 
     // Состояние подключения
-    private boolean gameStarted = false;
+    private volatile boolean gameStarted = false;
     private CharacterType opponentCharacter = null;
     private final CharacterType myCharacter;
 
@@ -30,20 +40,46 @@ public class GameController {
     // Флаг для отправки персонажа
     private boolean characterSent = false;
 
+    // Направление зажатой клавиши; фаза ввода берет его раз в кадр для всех тиков кадра
+    private volatile String heldDirection = null;
+    private String frameDirection = null;
+    // Способность нажата на клавиатуре, применяется в ближайшем тике
+    private final AtomicBoolean powerUpRequested = new AtomicBoolean();
+
+    // Ввод противника, результаты раундов и снимки из потока сети. Состояние игры меняет только тик:
+    // все это разбирается в его начале
+    private final TickInbox inbox = new TickInbox();
+
+    // Авторитетный режим: хост рассылает снимки каждые snapshotInterval тиков (0 - выключен),
+    // клиент применяет последний пришедший снимок в начале тика
+    private final int snapshotInterval;
+
+    // Момент старта матча (System.nanoTime), назначенный сервером; 0 - не назначен
+    private volatile long scheduledStartNanos = 0;
+
     public GameController(boolean isServer, CharacterType myCharacter, String serverAddress, int port) {
+        this(isServer, myCharacter, serverAddress, port, Transport.current());
+    }
+
+    public GameController(boolean isServer, CharacterType myCharacter, String serverAddress, int port,
+                          Transport transport) {
         this.isServer = isServer;
         this.serverAddress = serverAddress;
         this.myCharacter = myCharacter;
         this.port = port;
+        this.snapshotInterval = isServer && GameConfig.SNAPSHOT_RATE > 0
+                ? GameSnapshot.intervalTicks(GameConfig.TICK_RATE, GameConfig.SNAPSHOT_RATE)
+                : 0;
 
         System.out.println("Режим: " + (isServer ? "сервер" : "клиент"));
         System.out.println("Мой персонаж: " + myCharacter.getName());
+        this.frameScheduler = new FrameScheduler(isServer ? "хост" : "клиент");
 
-        // Инициализация движка с передачей себя в конструктор
-        this.gameEngine = new GameEngine(myCharacter, isServer, this);
+        // Движок сообщает о событиях через слушателя, адаптер переносит их в FX поток
+        this.gameEngine = new GameEngine(myCharacter, isServer, new FxGameEventListener(this));
 
         // Инициализация сети
-        this.networkManager = new NetworkManager(this, isServer);
+        this.networkManager = new NetworkManager(this, isServer, transport);
         this.networkManager.setMyCharacter(myCharacter);
     }
     public int getPort() {
@@ -53,105 +89,174 @@ public class GameController {
         this.mainApp = main;
     }
 
-    public void setGameRenderer(GameRenderer renderer) {
+    public void setGameRenderer(MatchRenderer renderer) {
         this.gameRenderer = renderer;
-        System.out.println("GameRenderer установлен");
+        renderer.setLocalPlayerId(gameEngine.getLocalPlayerId());
+        System.out.println("Рендерер установлен: " + renderer.getClass().getSimpleName());
 
-        // Запускаем отдельный цикл рендеринга
-        startRenderLoop();
+        frameScheduler.setTask(Phase.RENDER, now -> {
+            if (shouldRender) {
+                gameRenderer.render(getCurrentFrame(), isWaitingForOpponent(), renderAlpha);
+            }
+        });
+        startFrames();
     }
 
-    private void startRenderLoop() {
-        renderLoop = new AnimationTimer() {
-            @Override
-            public void handle(long now) {
-                if (gameRenderer != null && shouldRender) {
-                    gameRenderer.render(getCurrentGameState(), isWaitingForOpponent());
-                }
+    // Второй игрок локальной игры: своего экрана нет, но старт матча и тики идут так же
+    public void startWithoutRenderer() {
+        startFrames();
+    }
+
+    private void startFrames() {
+        frameScheduler.setTask(Phase.INPUT, this::pollInput);
+        frameScheduler.setTask(Phase.SIMULATE, now -> {
+            if (fixedStepLoop != null) {
+                // Прогоняем фиксированные тики, остаток идет в интерполяцию
+                renderAlpha = fixedStepLoop.advance(now);
             }
-        };
-        renderLoop.start();
-        System.out.println("Цикл рендеринга запущен");
+        });
+        frameScheduler.setTask(Phase.PUBLISH, now -> {
+            // рендерер и HUD видят только целые тики, кадр без тиков не публикуется
+            if (gameEngine.getTickNumber() != publishedTick) {
+                publishedTick = gameEngine.getTickNumber();
+                gameEngine.publishFrame();
+            }
+        });
+        frameScheduler.start();
+    }
+
+    // HUD экрана игры регистрирует здесь свою фазу
+    public FrameScheduler getFrameScheduler() {
+        return frameScheduler;
+    }
+
+    // Фаза ввода: старт матча в назначенный момент и клавиатура для тиков этого кадра.
+    // Сетевой ввод разбирается в начале каждого тика (simulateTick)
+    private void pollInput(long now) {
+        long startAt = scheduledStartNanos;
+        if (startAt != 0 && now >= startAt && opponentCharacter != null) {
+            scheduledStartNanos = 0;
+            startActualGame();
+        }
+        frameDirection = heldDirection;
+    }
+
+    // Вызывается из UI при нажатии/отпускании клавиш, null - ничего не зажато
+    public void setHeldDirection(String direction) {
+        this.heldDirection = direction;
     }
 
-    // Вызывается из UI при нажатии клавиш
-    public void handlePlayerInput(String direction) {
+    // Вызывается каждый тик, если клавиша направления зажата
+    private void handlePlayerInput(String direction) {
         if (!gameStarted || !gameEngine.canProcessInput()) return;
 
         // Обрабатываем локально
-        gameEngine.processPlayerInput(direction, true);
+        int sequence = gameEngine.processLocalInput(direction);
 
-        // Отправляем по сети
-        networkManager.sendPlayerMove(direction);
+        // Отправляем по сети (хост авторитетного режима шлет снимки вместо движений)
+        if (snapshotInterval == 0) {
+            networkManager.sendPlayerMove(direction, sequence);
+        }
     }
 
-    // Вызывается из UI при активации способности
+    // Вызывается из UI при активации способности, сама активация - в ближайшем тике
     public void activatePowerUp() {
-        if (!gameStarted || !gameEngine.canActivatePowerUp()) return;
+        if (gameStarted) {
+            powerUpRequested.set(true);
+        }
+    }
+
+    private void applyPowerUp() {
+        if (!gameEngine.canActivatePowerUp()) return;
 
         boolean activated = gameEngine.activatePowerUp();
-        if (activated) {
+        if (activated && snapshotInterval == 0) {
             networkManager.sendPowerUp();
         }
     }
 
-    // Обработка сетевого ввода (от противника)
-    public void handleNetworkInput(String direction) {
-        if (!gameStarted || !gameEngine.canProcessInput()) return;
-
-        gameEngine.processPlayerInput(direction, false);
+    // Вызывается из потока сети: движение и способность противника, результат раунда от сервера
+    public void queueNetworkMessage(Message message) {
+        // Движение противника нужно движку всегда: номер ввода подтверждается и до старта.
+        // Остальное до старта не нужно
+        if (gameStarted || message.getType() == Message.Type.PLAYER_MOVE) {
+            inbox.add(message);
+        }
     }
 
-    // Обработка сетевой активации способности
-    public void handleNetworkPowerUp() {
-        if (!gameStarted) return;
+    private void applyNetworkMessage(Message message) {
+        switch (message.getType()) {
+            case PLAYER_MOVE:
+                // движок сам подтвердит номер и проигнорирует движение, если раунд не идет
+                gameEngine.processOpponentInput(PlayerMove.direction(message), PlayerMove.sequence(message));
+                break;
+
+            case POWER_UP:
+                gameEngine.processOpponentPowerUp();
+                break;
 
-        gameEngine.processOpponentPowerUp();
+            case ROUND_RESULT:
+                gameEngine.handleRoundResult(Integer.parseInt(message.getData()));
+                break;
+
+            default:
+                System.out.println("GameController: сообщение не обработано: " + message);
+        }
+    }
+
+    // Снимок от сервера (поток сети): сохраняем, применится в начале следующего тика
+    public void handleSnapshot(GameSnapshot snapshot) {
+        inbox.setSnapshot(snapshot);
     }
 
     public GameState getCurrentGameState() {
         return gameEngine.getGameState();
     }
 
+    // Кадр последнего тика для отрисовки и HUD, вызывать только из FX потока
+    public StateFrame getCurrentFrame() {
+        return gameEngine.acquireFrame();
+    }
+
+    // Тики идут в фазе симуляции планировщика кадров
     private void startGameLoop() {
-        gameLoop = new AnimationTimer() {
-            private long lastUpdate = 0;
+        fixedStepLoop = new FixedStepLoop(GameConfig.TICK_RATE, this::simulateTick);
+        System.out.println("Игровой цикл запущен: " + GameConfig.TICK_RATE + " тиков/с");
+    }
 
-            @Override
-            public void handle(long now) {
-                if (lastUpdate == 0) {
-                    lastUpdate = now;
-                    return;
-                }
+    // Один тик симуляции: ввод опрашивается здесь, а не в обработчике клавиш
+    private void simulateTick(double deltaTime) {
+        gameEngine.beginTick();
 
-                double deltaTime = (now - lastUpdate) / 1_000_000_000.0;
-                lastUpdate = now;
+        inbox.drain(gameEngine::applySnapshot, this::applyNetworkMessage);
 
-                // Обновляем игровую логику
-                gameEngine.update(deltaTime);
-            }
-        };
-        gameLoop.start();
-        System.out.println("Игровой цикл запущен");
+        String direction = frameDirection;
+        if (direction != null) {
+            handlePlayerInput(direction);
+        }
+        if (powerUpRequested.getAndSet(false)) {
+            applyPowerUp();
+        }
+
+        gameEngine.update(deltaTime);
+
+        if (snapshotInterval > 0 && gameEngine.getTickNumber() % snapshotInterval == 0) {
+            networkManager.sendSnapshot(gameEngine.captureSnapshot());
+        }
+        networkManager.flush();
     }
 
     public void stop() {
         shouldRender = false;
 
-        if (renderLoop != null) {
-            renderLoop.stop();
-            System.out.println("Цикл рендеринга остановлен");
-        }
-
-        if (gameLoop != null) {
-            gameLoop.stop();
-            System.out.println("Игровой цикл остановлен");
-        }
+        // все фазы, включая HUD экрана, больше не вызываются
+        frameScheduler.stop();
 
         if (networkManager != null) {
             networkManager.disconnect();
             System.out.println("Сетевое соединение закрыто");
         }
+        inbox.clear();
     }
 
     // Метод для обновления персонажа противника
@@ -167,6 +272,16 @@ public class GameController {
         checkIfGameCanStart();
     }
 
+    // Выделенный сервер назначил нам номер игрока
+    public void assignLocalPlayer(int playerId) {
+        if (gameEngine != null) {
+            gameEngine.setLocalPlayerId(playerId);
+        }
+        if (gameRenderer != null) {
+            gameRenderer.setLocalPlayerId(playerId);
+        }
+    }
+
     // Метод для обработки подключения противника
     public void onOpponentConnected() {
         System.out.println("GameController: Противник подключился!");
@@ -187,24 +302,25 @@ public class GameController {
         if (opponentCharacter != null && !gameStarted) {
             System.out.println("GameController: Все готово к запуску игры!");
 
-            // Небольшая задержка для синхронизации
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500);
-                    Platform.runLater(() -> {
-                        if (!gameStarted) {
-                            startActualGame();
-                        }
-                    });
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            if (isServer) {
+                // хост назначает момент старта с запасом на доставку и стартует в него сам
+                long lead = networkManager.matchStartLeadMicros();
+                long startAt = LatencyEstimator.nowMicros() + lead;
+                networkManager.sendRoundStart(startAt, lead);
+                scheduleMatchStart(startAt * 1000);
+            } else {
+                System.out.println("GameController: Ждем от сервера момент старта");
+            }
         } else {
             System.out.println("GameController: Игра еще не может начаться");
         }
     }
 
+    // Старт в заданный момент (System.nanoTime), проверяется в цикле рендеринга
+    public void scheduleMatchStart(long startAtNanos) {
+        this.scheduledStartNanos = startAtNanos;
+    }
+
     private void startActualGame() {
         if (gameStarted) {
             System.out.println("GameController: Игра уже начата!");
@@ -224,15 +340,27 @@ public class GameController {
         startGameLoop();
     }
 
-    // Метод, вызываемый GameEngine при завершении матча
+    // События движка (приходят уже в FX потоке через FxGameEventListener)
+    @Override
+    public void onRoundResult(int winnerId) {
+        notifyRoundResult(winnerId);
+    }
+
+    @Override
+    public void onMatchFinished() {
+        showMatchResults();
+    }
+
+    // Метод, вызываемый при завершении матча
     public void showMatchResults() {
         System.out.println(" GameController: Показываем результаты...");
         if (mainApp != null) {
             GameState currentState = getCurrentGameState();
             System.out.println("GameController.showMatchResults: isServer = " + isServer);
-            System.out.println("GameController.showMatchResults: Передаем isLocalPlayer1 = " + isServer);
 
-            boolean isLocalPlayer1 = isServer; // Сервер = Player1, Клиент = Player2
+            // Обычно сервер = Player1, клиент = Player2, но выделенный сервер назначает номер сам
+            boolean isLocalPlayer1 = gameEngine.getLocalPlayerId() == 1;
+            System.out.println("GameController.showMatchResults: Передаем isLocalPlayer1 = " + isLocalPlayer1);
             mainApp.showMatchResults(currentState, isLocalPlayer1);
         }
     }
@@ -258,8 +386,9 @@ public class GameController {
         }
     }
 
+    // Подсказка для UI по последнему кадру, окончательная проверка - в тике
     public boolean canActivatePowerUp() {
-        return gameStarted && gameEngine.canActivatePowerUp();
+        return gameStarted && getCurrentFrame().isPowerUpReady();
     }
 
     public boolean isGameStarted() {
@@ -269,13 +398,7 @@ public class GameController {
     public boolean isWaitingForOpponent() {
         return !gameStarted;
     }
-    public void handleRoundResult(int winnerId) {
-        if (gameEngine != null) {
-            gameEngine.handleRoundResult(winnerId);
-        }
-    }
-
-    // Метод для отправки результатов раунда (для GameEngine)
+    // Метод для отправки результатов раунда
     public void notifyRoundResult(int winnerId) {
         if (networkManager != null) {
             networkManager.notifyRoundResult(winnerId);
@@ -1,17 +1,34 @@
 package sumogame.controller;
 
-import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import sumogame.view.GameRenderer;
+import sumogame.view.HudModel;
+import sumogame.view.MatchRenderer;
+import sumogame.view.RendererBackend;
+import sumogame.view.SceneGraphRenderer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 public class GameScreenController {
+    private static final String TIMER_BASE_STYLE = "-fx-font-size: 20; " +
+            "-fx-font-weight: bold; -fx-padding: 4 8; " +
+            "-fx-background-color: white; -fx-background-radius: 8; " +
+            "-fx-border-width: 2; -fx-border-radius: 6; ";
+    private static final String TIMER_CRITICAL_STYLE = TIMER_BASE_STYLE + "-fx-text-fill: red; -fx-border-color: #FF4500;";
+    private static final String TIMER_WARNING_STYLE = TIMER_BASE_STYLE + "-fx-text-fill: orange; -fx-border-color: #FFA500;";
+    private static final String TIMER_NORMAL_STYLE = TIMER_BASE_STYLE + "-fx-text-fill: #FF69B4; -fx-border-color: #FFB6C1;";
+
+    @FXML private Canvas backgroundCanvas;
     @FXML private Canvas gameCanvas;
     @FXML private StackPane gameContainer;
     @FXML private Label player1ScoreLabel;
@@ -23,180 +40,179 @@ public class GameScreenController {
     @FXML private Label powerUpStatusLabel;
     @FXML private Label powerUpTimerLabel;
 
-    private GameRenderer gameRenderer;
+    private MatchRenderer gameRenderer;
     private GameController gameController;
 
-    private AnimationTimer uiUpdateTimer;
-    private int lastDisplayedTime = -1;
+    // Панель над ареной меняется только вслед за свойствами модели
+    private final HudModel hudModel = new HudModel();
+
+    // Зажатые клавиши направления, последняя нажатая - в начале
+    private final Deque<String> heldDirections = new ArrayDeque<>();
+
+    // Второй игрок за той же клавиатурой (локальная игра вдвоем), иначе null
+    private GameController secondPlayerController;
+    private final Deque<String> secondHeldDirections = new ArrayDeque<>();
 
     @FXML
     public void initialize() {
         System.out.println("GameScreenController: Инициализация");
 
-        //  рендерер
-        gameRenderer = new GameRenderer(gameCanvas);
-
-        // размер канваса
+        // размер канваса (рендерер берет его за размер поля)
         gameCanvas.setWidth(900);
         gameCanvas.setHeight(480);
 
-        // начальные значения
-        Platform.runLater(() -> {
-            roundTimeLabel.setText("⏱️ 60с");
-            roundTimeLabel.setTextFill(Color.web("#FF69B4"));
-            roundNumberLabel.setText("🌸 Раунд 1");
-            player1ScoreLabel.setText("Игрок 1: 0");
-            player2ScoreLabel.setText("Игрок 2: 0");
-            powerUpStatusLabel.setText("✨ Способность: ГОТОВА");
-        });
-
-        //  таймер обновления UI
-        startUIUpdateTimer();
-    }
+        //  рендерер: канвас или узлы сцены (-Dsumogame.renderer)
+        if (RendererBackend.current() == RendererBackend.SCENE) {
+            gameRenderer = new SceneGraphRenderer((Pane) gameCanvas.getParent(), gameCanvas.getWidth(), gameCanvas.getHeight());
+        } else {
+            gameRenderer = new GameRenderer(backgroundCanvas, gameCanvas);
+        }
 
-    private void startUIUpdateTimer() {
-        uiUpdateTimer = new AnimationTimer() { //спец таймер, вызываетсч каждый кадр
-            @Override
-            public void handle(long now) {
-                updateUI();
-            }
-        };
-        uiUpdateTimer.start();
+        bindHud();
     }
 
+    // Фаза HUD планировщика кадров, уже в FX потоке
     private void updateUI() {
-        if (gameController == null) return;
+        if (gameController == null || !gameController.isGameStarted()) return;
 
         try {
-            if (gameController.isGameStarted()) {
-                var state = gameController.getCurrentGameState();
-                if (state == null) return;
-
-                Platform.runLater(() -> {
-                    // Обновляем таймер
-                    int timeLeft = (int) Math.ceil(state.getRoundTime());
-                    if (timeLeft != lastDisplayedTime) {
-                        roundTimeLabel.setText("⏱️ " + timeLeft + "с");
-
-                        // Меняем цвет таймера
-                        if (timeLeft <= 10) {
-                            roundTimeLabel.setTextFill(Color.RED);
-                            roundTimeLabel.setStyle(
-                                    "-fx-text-fill: red; -fx-font-size: 20; " +
-                                            "-fx-font-weight: bold; -fx-padding: 4 8; " +
-                                            "-fx-background-color: white; -fx-background-radius: 8; " +
-                                            "-fx-border-color: #FF4500; -fx-border-width: 2; " +
-                                            "-fx-border-radius: 6;"
-                            );
-                        } else if (timeLeft <= 30) {
-                            roundTimeLabel.setTextFill(Color.ORANGE);
-                            roundTimeLabel.setStyle(
-                                    "-fx-text-fill: orange; -fx-font-size: 20; " +
-                                            "-fx-font-weight: bold; -fx-padding: 4 8; " +
-                                            "-fx-background-color: white; -fx-background-radius: 8; " +
-                                            "-fx-border-color: #FFA500; -fx-border-width: 2; " +
-                                            "-fx-border-radius: 6;"
-                            );
-                        } else {
-                            roundTimeLabel.setTextFill(Color.web("#FF69B4"));
-                            roundTimeLabel.setStyle(
-                                    "-fx-text-fill: #FF69B4; -fx-font-size: 20; " +
-                                            "-fx-font-weight: bold; -fx-padding: 4 8; " +
-                                            "-fx-background-color: white; -fx-background-radius: 8; " +
-                                            "-fx-border-color: #FFB6C1; -fx-border-width: 2; " +
-                                            "-fx-border-radius: 6;"
-                            );
-                        }
-                        lastDisplayedTime = timeLeft;
-                    }
-
-                    // Обновляем остальной UI
-                    roundNumberLabel.setText("🌸 Раунд " + state.getRoundNumber());
-                    player1ScoreLabel.setText("Игрок 1: " + state.getPlayer1Score());
-                    player2ScoreLabel.setText("Игрок 2: " + state.getPlayer2Score());
-
-                    // Обновляем индикаторы способностей
-                    updatePowerUpUI(state);
-                });
-            }
+            hudModel.update(gameController.getCurrentFrame());
         } catch (Exception e) {
             System.err.println("Ошибка обновления UI: " + e.getMessage());
         }
     }
 
+    private void bindHud() {
+        roundTimeLabel.textProperty().bind(Bindings.format("⏱️ %dс", hudModel.timeLeftProperty()));
+        roundNumberLabel.textProperty().bind(Bindings.format("🌸 Раунд %d", hudModel.roundNumberProperty()));
+        player1ScoreLabel.textProperty().bind(Bindings.format("Игрок 1: %d", hudModel.player1ScoreProperty()));
+        player2ScoreLabel.textProperty().bind(Bindings.format("Игрок 2: %d", hudModel.player2ScoreProperty()));
+
+        // Стили меняются только при смене состояния, а не каждый кадр
+        hudModel.timerLevelProperty().addListener((obs, oldLevel, level) -> showTimerLevel(level));
+        hudModel.powerUpStatusProperty().addListener((obs, oldStatus, status) -> showPowerUpStatus(status));
+        hudModel.player1BarProperty().addListener((obs, oldBar, bar) -> showPowerUpBar(player1PowerUpBar, bar));
+        hudModel.player2BarProperty().addListener((obs, oldBar, bar) -> showPowerUpBar(player2PowerUpBar, bar));
+    }
+
+    private void showTimerLevel(HudModel.TimerLevel level) {
+        switch (level) {
+            case CRITICAL:
+                roundTimeLabel.setTextFill(Color.RED);
+                roundTimeLabel.setStyle(TIMER_CRITICAL_STYLE);
+                break;
+            case WARNING:
+                roundTimeLabel.setTextFill(Color.ORANGE);
+                roundTimeLabel.setStyle(TIMER_WARNING_STYLE);
+                break;
+            default:
+                roundTimeLabel.setTextFill(Color.web("#FF69B4"));
+                roundTimeLabel.setStyle(TIMER_NORMAL_STYLE);
+        }
+    }
+
     @FXML
     public void handleKeyPressed(KeyEvent event) {
         if (gameController == null || !gameController.isGameStarted()) return;
 
-        String direction = null;
-
-        switch (event.getCode()) {
-            case W: case UP: direction = "UP"; break;
-            case S: case DOWN: direction = "DOWN"; break;
-            case A: case LEFT: direction = "LEFT"; break;
-            case D: case RIGHT: direction = "RIGHT"; break;
-            case SPACE:
-                if (gameController.canActivatePowerUp()) {
-                    gameController.activatePowerUp();
-                }
-                break;
+        KeyCode code = event.getCode();
+        GameController target = controllerFor(code);
+        if (code == KeyCode.SPACE || (code == KeyCode.ENTER && secondPlayerController != null)) {
+            if (target.canActivatePowerUp()) {
+                target.activatePowerUp();
+            }
+            return;
+        }
+
+        String direction = toDirection(code);
+        Deque<String> held = heldDirectionsOf(target);
+        if (direction != null && !direction.equals(held.peekFirst())) {
+            // автоповтор ОС не влияет на скорость: движение опрашивается раз в тик
+            held.remove(direction);
+            held.addFirst(direction);
+            target.setHeldDirection(direction);
+        }
+    }
+
+    @FXML
+    public void handleKeyReleased(KeyEvent event) {
+        String direction = toDirection(event.getCode());
+        if (direction == null || gameController == null) return;
+
+        GameController target = controllerFor(event.getCode());
+        Deque<String> held = heldDirectionsOf(target);
+        held.remove(direction);
+        target.setHeldDirection(held.peekFirst());
+    }
+
+    // В локальной игре вдвоем стрелки и Enter управляют вторым игроком, WASD и пробел - первым
+    private GameController controllerFor(KeyCode code) {
+        if (secondPlayerController != null && (code.isArrowKey() || code == KeyCode.ENTER)) {
+            return secondPlayerController;
         }
+        return gameController;
+    }
+
+    private Deque<String> heldDirectionsOf(GameController controller) {
+        return controller == secondPlayerController ? secondHeldDirections : heldDirections;
+    }
 
-        if (direction != null) {
-            gameController.handlePlayerInput(direction);
+    private String toDirection(KeyCode code) {
+        switch (code) {
+            case W: case UP: return "UP";
+            case S: case DOWN: return "DOWN";
+            case A: case LEFT: return "LEFT";
+            case D: case RIGHT: return "RIGHT";
+            default: return null;
         }
     }
 
     public void setGameController(GameController controller) {
         this.gameController = controller;
+        controller.getFrameScheduler().setTask(FrameScheduler.Phase.HUD, now -> updateUI());
         requestFocus(); //фокус для контейнера (чтобы клавиши работали)
     }
 
-    private void updatePowerUpUI(sumogame.model.GameState state) {
-        if (state == null) return;
-
-        // Обновляем прогресс-бары
-        if (state.getPlayer1() != null) {
-            updatePowerUpBar(player1PowerUpBar, state.getPlayer1());
-        }
-        if (state.getPlayer2() != null) {
-            updatePowerUpBar(player2PowerUpBar, state.getPlayer2());
-        }
+    public void setSecondPlayerController(GameController controller) {
+        this.secondPlayerController = controller;
+    }
 
-        // Обновляем статус способности
-        if (gameController != null && gameController.canActivatePowerUp()) {
-            powerUpStatusLabel.setText("✨ Способность: ГОТОВА");
-            powerUpStatusLabel.setTextFill(Color.web("#FF69B4"));
-            powerUpTimerLabel.setText("");
-        } else if (state.getPlayer1() != null && state.getPlayer1().isPowerUpActive()) {
-            powerUpStatusLabel.setText("✨ Способность: АКТИВНА");
-            powerUpStatusLabel.setTextFill(Color.web("#32CD32"));
-            powerUpTimerLabel.setText("Осталось: 2.5с");
-        } else if (state.getPlayer2() != null && state.getPlayer2().isPowerUpActive()) {
-            powerUpStatusLabel.setText("✨ Способность: АКТИВНА");
-            powerUpStatusLabel.setTextFill(Color.web("#32CD32"));
-            powerUpTimerLabel.setText("Осталось: 2.5с");
-        } else {
-            powerUpStatusLabel.setText("✨ Способность: ИСПОЛЬЗОВАНА");
-            powerUpStatusLabel.setTextFill(Color.web("#8B6969"));
-            powerUpTimerLabel.setText("");
+    private void showPowerUpStatus(HudModel.PowerUpStatus status) {
+        switch (status) {
+            case READY:
+                powerUpStatusLabel.setText("✨ Способность: ГОТОВА");
+                powerUpStatusLabel.setTextFill(Color.web("#FF69B4"));
+                powerUpTimerLabel.setText("");
+                break;
+            case ACTIVE:
+                powerUpStatusLabel.setText("✨ Способность: АКТИВНА");
+                powerUpStatusLabel.setTextFill(Color.web("#32CD32"));
+                powerUpTimerLabel.setText("Осталось: 2.5с");
+                break;
+            default:
+                powerUpStatusLabel.setText("✨ Способность: ИСПОЛЬЗОВАНА");
+                powerUpStatusLabel.setTextFill(Color.web("#8B6969"));
+                powerUpTimerLabel.setText("");
         }
     }
 
-    private void updatePowerUpBar(ProgressBar bar, sumogame.model.Player player) {
-        if (player.isPowerUpActive()) {
-            bar.setProgress(0.5);
-            bar.setStyle("-fx-accent: #32CD32; -fx-background-radius: 6;");
-        } else if (player.isPowerUpAvailable()) {
-            bar.setProgress(1.0);
-            bar.setStyle("-fx-accent: #FFD700; -fx-background-radius: 6;");
-        } else {
-            bar.setProgress(0.0);
-            bar.setStyle("-fx-accent: #CCCCCC; -fx-background-radius: 6;");
+    private void showPowerUpBar(ProgressBar bar, HudModel.PowerUpBar state) {
+        switch (state) {
+            case ACTIVE:
+                bar.setProgress(0.5);
+                bar.setStyle("-fx-accent: #32CD32; -fx-background-radius: 6;");
+                break;
+            case AVAILABLE:
+                bar.setProgress(1.0);
+                bar.setStyle("-fx-accent: #FFD700; -fx-background-radius: 6;");
+                break;
+            default:
+                bar.setProgress(0.0);
+                bar.setStyle("-fx-accent: #CCCCCC; -fx-background-radius: 6;");
         }
     }
 
-    public GameRenderer getGameRenderer() {
+    public MatchRenderer getGameRenderer() {
         return gameRenderer;
     }
 
@@ -0,0 +1,49 @@
+package sumogame.controller;
+
+import sumogame.model.GameSnapshot;
+import sumogame.network.message.Message;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Входящее из потока сети для тика симуляции: ввод противника, результаты раундов и снимок состояния.
+ * Класть может любой поток, разбирает только поток тика в начале тика (drain),
+ * поэтому ни сети, ни тику не нужны блокировки.
+ * Снимки не копятся: из пришедших между тиками применяется последний.
+ */
+final class TickInbox {
+    private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<GameSnapshot> pendingSnapshot = new AtomicReference<>();
+
+    void add(Message message) {
+        messages.add(message);
+    }
+
+    void setSnapshot(GameSnapshot snapshot) {
+        pendingSnapshot.set(snapshot);
+    }
+
+    // Сначала снимок, затем сообщения в порядке поступления; возвращает число сообщений
+    int drain(Consumer<GameSnapshot> applySnapshot, Consumer<Message> applyMessage) {
+        GameSnapshot snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot != null) {
+            applySnapshot.accept(snapshot);
+        }
+
+        int count = 0;
+        Message message;
+        while ((message = messages.poll()) != null) {
+            applyMessage.accept(message);
+            count++;
+        }
+        return count;
+    }
+
+    void clear() {
+        messages.clear();
+        pendingSnapshot.set(null);
+    }
+}
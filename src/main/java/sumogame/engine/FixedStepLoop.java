@@ -0,0 +1,74 @@
+package sumogame.engine;
+
+import sumogame.model.GameConfig;
+
+/**
+ * Цикл с фиксированным шагом симуляции.
+ * Реальное время кадра копится в аккумуляторе и расходуется целыми тиками,
+ * остаток отдается рендеру как коэффициент интерполяции alpha.
+ */
+public class FixedStepLoop {
+
+    public interface TickHandler {
+        void tick(double deltaTime);
+    }
+
+    private final TickHandler tickHandler;
+    private final int tickRate;
+    private final long stepNanos;
+    private final double stepSeconds;
+    private final long maxFrameNanos;
+
+    private long lastTime = -1;
+    private long accumulator = 0;
+    private long tickCount = 0;
+
+    public FixedStepLoop(int tickRate, TickHandler tickHandler) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Частота тиков должна быть положительной: " + tickRate);
+        }
+        this.tickRate = tickRate;
+        this.tickHandler = tickHandler;
+        this.stepNanos = 1_000_000_000L / tickRate;
+        this.stepSeconds = 1.0 / tickRate;
+        this.maxFrameNanos = (long) (GameConfig.MAX_FRAME_TIME * 1_000_000_000L);
+    }
+
+    // Прогоняет все накопившиеся тики и возвращает alpha для интерполяции
+    public double advance(long now) {
+        if (lastTime < 0) {
+            lastTime = now;
+            return 0;
+        }
+
+        long frameTime = now - lastTime;
+        lastTime = now;
+
+        // после долгой паузы не пытаемся догнать все пропущенное время
+        if (frameTime > maxFrameNanos) {
+            frameTime = maxFrameNanos;
+        }
+        accumulator += frameTime;
+
+        while (accumulator >= stepNanos) {
+            tickHandler.tick(stepSeconds);
+            accumulator -= stepNanos;
+            tickCount++;
+        }
+
+        return getAlpha();
+    }
+
+    public double getAlpha() {
+        return (double) accumulator / stepNanos;
+    }
+
+    public void reset() {
+        lastTime = -1;
+        accumulator = 0;
+    }
+
+    public int getTickRate() { return tickRate; }
+    public double getStepSeconds() { return stepSeconds; }
+    public long getTickCount() { return tickCount; }
+}
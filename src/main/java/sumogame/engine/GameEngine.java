@@ -1,40 +1,69 @@
 package sumogame.engine;
 
-import javafx.application.Platform;
-import sumogame.controller.GameController;
 import sumogame.model.*;
 import sumogame.model.Arena;
 
 public class GameEngine {
+    // Задержки переходов между раундами (в секундах игрового времени)
+    private static final double ROUND_END_DELAY = 0.05;
+    private static final double NEXT_ROUND_DELAY = 3.0;
+    // Предсказание на клиенте: сколько неподтвержденных вводов помнить (2 с при 60 тиках),
+    // какая доля визуальной поправки остается через тик и с какой ошибки не сглаживать
+    private static final int INPUT_HISTORY_SIZE = 128;
+    private static final double CORRECTION_DECAY = 0.8;
+    private static final double MAX_SMOOTHED_CORRECTION = GameConfig.PLAYER_BASE_SIZE * 2;
+
     private GameState gameState;
-    private GameController gameController;  // Прямая ссылка на контроллер
-    private boolean isServer;
+    private final GameEventListener listener; // движок не зависит от UI, только от слушателя
+    private boolean isServer; // сервер считает результаты раундов и рассылает их
+    private int localPlayerId; // 1 или 2, 0 - локального игрока нет (выделенный сервер)
     private CharacterType localCharacter;
     private double roundTimer;
     private boolean roundEnded;
     private boolean roundCompletionInProgress = false;
     private boolean gameInitialized = false;
+    private double tickDuration = 1.0 / GameConfig.TICK_RATE; // длительность одного тика симуляции
+    private long tickNumber; // номер текущего тика, попадает в снимки состояния
+
+    // Состояние ведет сервер: физика не считается, снимки применяются как есть
+    private boolean remoteAuthority = false;
+    private long lastSnapshotTick = -1;
+    private final InputHistory pendingInputs = new InputHistory(INPUT_HISTORY_SIZE);
+    private int localInputSequence; // номер последнего движения локального игрока
+
+    // Кадры состояния для отрисовки: публикуются в конце тика, читаются из потока отрисовки
+    private final StateBuffer frames = new StateBuffer();
+
+    // Отложенное действие (конец раунда, новый раунд, результаты), отсчитывается в update()
+    private Runnable pendingAction;
+    private double pendingActionDelay;
+
+    public GameEngine(CharacterType localCharacter, boolean isServer, GameEventListener listener) {
+        this(localCharacter, isServer, listener, GameConfig.TICK_RATE);
+    }
 
-    public GameEngine(CharacterType localCharacter, boolean isServer, GameController controller) {
+    public GameEngine(CharacterType localCharacter, boolean isServer, GameEventListener listener, int tickRate) {
+        this(isServer ? 1 : 2, localCharacter, isServer, listener, tickRate);
+    }
+
+    public GameEngine(int localPlayerId, CharacterType localCharacter, boolean isServer,
+                      GameEventListener listener, int tickRate) {
+        this.localPlayerId = localPlayerId;
         this.localCharacter = localCharacter;
         this.isServer = isServer;
-        this.gameController = controller;
+        this.listener = listener != null ? listener : GameEventListener.NONE;
+        this.tickDuration = 1.0 / tickRate;
         this.roundEnded = false;
         this.roundCompletionInProgress = false;
         initializeGameState();
+        publishFrame(); // экран ожидания рисуется до первого тика
     }
 
     private void initializeGameState() {
         Arena arena = new Arena(ArenaType.PINK_CIRCLE);
 
-        CharacterType player1Type, player2Type;
-        if (isServer) {
-            player1Type = localCharacter;
-            player2Type = CharacterType.PINK;
-        } else {
-            player1Type = CharacterType.PINK;
-            player2Type = localCharacter;
-        }
+        CharacterType player1Type = localPlayerId == 1 ? localCharacter : CharacterType.PINK;
+        CharacterType player2Type = localPlayerId == 2 ? localCharacter : CharacterType.PINK;
 
         Player player1 = new Player(1, player1Type, arena.getPlayer1StartX(), arena.getPlayer1StartY());
         Player player2 = new Player(2, player2Type, arena.getPlayer2StartX(), arena.getPlayer2StartY());
@@ -60,48 +89,84 @@ public class GameEngine {
 
         gameState.setGameActive(true);
         gameInitialized = true;
-        //запусчк задержки в отдельном потоке
-        new Thread(() -> {
-            try {
-                Thread.sleep(1000);
-                Platform.runLater(() -> {
-                    System.out.println("Игра началась!");
-                    System.out.println("Раунд 1 из 3 - " + gameState.getCurrentArena().getType().getName());
-                });
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        System.out.println("Игра началась!");
+        System.out.println("Раунд 1 из 3 - " + gameState.getCurrentArena().getType().getName());
         System.out.println("Арена: " + gameState.getCurrentArena().getType().getName());
         System.out.println("Счет: 0 - 0");
     }
     //Обновление персонажа противника (получено из сети)
     public void updateOpponentCharacter(CharacterType opponentCharacter) {
-        if (isServer) {
-            gameState.getPlayer2().setType(opponentCharacter);
-            System.out.println("Клиент выбрал: " + opponentCharacter.getName());
+        getOpponentPlayer().setType(opponentCharacter);
+        System.out.println("Противник выбрал: " + opponentCharacter.getName());
+    }
+
+    // Персонаж конкретного игрока (выделенный сервер получает оба по сети)
+    public void setPlayerCharacter(int playerId, CharacterType character) {
+        getPlayer(playerId).setType(character);
+    }
+
+    // Выделенный сервер сообщил клиенту его номер игрока
+    public void setLocalPlayerId(int playerId) {
+        if (playerId == localPlayerId) return;
+
+        this.localPlayerId = playerId;
+        getPlayer(playerId).setType(localCharacter);
+        getOpponentPlayer().setType(CharacterType.PINK);
+        System.out.println("Локальный игрок теперь: Игрок " + playerId);
+    }
+
+    public int getLocalPlayerId() {
+        return localPlayerId;
+    }
+
+    private Player getPlayer(int playerId) {
+        return playerId == 1 ? gameState.getPlayer1() : gameState.getPlayer2();
+    }
+
+    private Player getLocalPlayer() {
+        return getPlayer(localPlayerId);
+    }
+
+    private Player getOpponentPlayer() {
+        return localPlayerId == 1 ? gameState.getPlayer2() : gameState.getPlayer1();
+    }
+
+    // Вызывается в начале каждого тика, до применения ввода
+    public void beginTick() {
+        tickNumber++;
+        gameState.getPlayer1().storePreviousPosition();
+        gameState.getPlayer2().storePreviousPosition();
+    }
+
+    // Один вызов = движение на один тик.
+    // Возвращает номер ввода: вызывающий код отправляет движение с этим номером на сервер
+    public int processLocalInput(String directionStr) {
+        localInputSequence++;
+        if (remoteAuthority) {
+            predictLocalInput(directionStr);
         } else {
-            gameState.getPlayer1().setType(opponentCharacter);
-            System.out.println("Сервер выбрал: " + opponentCharacter.getName());
+            processPlayerInput(localPlayerId, directionStr, localInputSequence);
         }
+        return localInputSequence;
     }
 
-    public void processPlayerInput(String directionStr, boolean isLocal) {
-        if (!gameState.isGameActive() || roundEnded || gameState.isMatchFinished()) return;
+    public void processOpponentInput(String directionStr, int sequence) {
+        processPlayerInput(getOpponentPlayer().getPlayerId(), directionStr, sequence);
+    }
 
-        Direction direction;
-        try {
-            direction = Direction.valueOf(directionStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            System.err.println("Неверное направление: " + directionStr);
-            return;
-        }
+    // sequence - номер из PLAYER_MOVE, вернется клиенту в снимке (-1 - без номера)
+    public void processPlayerInput(int playerId, String directionStr, int sequence) {
+        if (remoteAuthority) return; // движение посчитает сервер
 
-        Player playerToMove = isLocal ?
-                (isServer ? gameState.getPlayer1() : gameState.getPlayer2()) :
-                (isServer ? gameState.getPlayer2() : gameState.getPlayer1());
+        Player playerToMove = getPlayer(playerId);
+        // номер подтверждается, даже если движение проигнорировано: клиент перестанет его повторять
+        playerToMove.acknowledgeInput(sequence);
+        if (!gameState.isGameActive() || roundEnded || gameState.isMatchFinished()) return;
+
+        Direction direction = parseDirection(directionStr);
+        if (direction == null) return;
 
-        playerToMove.move(direction); //движение
+        playerToMove.move(direction, tickDuration); //движение
         constrainPlayerToArena(playerToMove); //ограничение
         checkCollisions(); // проверка столкновения
 
@@ -109,6 +174,26 @@ public class GameEngine {
             checkIfPlayerOut();
         }
     }
+    // Клиент в авторитетном режиме: свой игрок двигается сразу, ввод ждет подтверждения сервера
+    private void predictLocalInput(String directionStr) {
+        Direction direction = parseDirection(directionStr);
+        pendingInputs.add(localInputSequence, direction);
+        if (direction == null || localPlayerId == 0 || !canProcessInput()) return;
+
+        Player localPlayer = getLocalPlayer();
+        localPlayer.move(direction, tickDuration);
+        constrainPlayerToArena(localPlayer);
+    }
+
+    private Direction parseDirection(String directionStr) {
+        try {
+            return Direction.valueOf(directionStr.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("Неверное направление: " + directionStr);
+            return null;
+        }
+    }
+
     //Ограничение движения игрока границами арены
     private void constrainPlayerToArena(Player player) {
         double x = player.getX();
@@ -182,18 +267,11 @@ public class GameEngine {
                 System.out.println("Результат: ПОБЕДИЛ ИГРОК 1");
             }
             // завершение райнда с задержкой
-            new Thread(() -> {
-                try {
-                    Thread.sleep(50);
-                    Platform.runLater(() -> {
-                        if (!roundEnded) {
-                            endRound(winnerId);
-                        }
-                    });
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+            schedule(ROUND_END_DELAY, () -> {
+                if (!roundEnded) {
+                    endRound(winnerId);
                 }
-            }).start();
+            });
         }
     }
 
@@ -221,10 +299,9 @@ public class GameEngine {
         System.out.println("Счет: " + gameState.getPlayer1Score() + " - " + gameState.getPlayer2Score());
 
         // сервер отправляет результат раунда клиентам
-        if (isServer && gameController != null) {
-            // Отправляем результат через NetworkManager
+        if (isServer) {
             System.out.println("Сервер отправляет результат раунда клиентам: " + winnerId);
-            gameController.notifyRoundResult(winnerId);
+            listener.onRoundResult(winnerId);
         }
 
         // Проверяем, завершен ли матч
@@ -276,24 +353,10 @@ public class GameEngine {
             System.out.println("🎮 " + winnerMessage);
 
             // Задержка перед показом результатов
-            new Thread(() -> {
-                try {
-                    Thread.sleep(3000);
-                    Platform.runLater(() -> showMatchResults());
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }).start();
+            schedule(NEXT_ROUND_DELAY, this::showMatchResults);
         } else {
             System.out.println("Запуск следующего раунда через 3 секунды...");
-            new Thread(() -> {
-                try {
-                    Thread.sleep(3000);
-                    Platform.runLater(() -> startNewRound());
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }).start();
+            schedule(NEXT_ROUND_DELAY, this::startNewRound);
         }
 
         roundCompletionInProgress = false;
@@ -308,6 +371,12 @@ public class GameEngine {
 
         System.out.println("Клиент получил результат раунда от сервера: " + winnerId);
 
+        if (remoteAuthority) {
+            // счет и смена раунда придут снимком, здесь только победитель для таблицы результатов
+            gameState.setRoundWinner(gameState.getRoundNumber() - 1, winnerId);
+            return;
+        }
+
         // Если раунд еще не завершен локально, завершаем его
         if (!roundEnded) {
             System.out.println("Завершаю раунд по команде сервера");
@@ -376,32 +445,48 @@ public class GameEngine {
 
     private void showMatchResults() {
         System.out.println("ПОКАЗЫВАЕМ РЕЗУЛЬТАТЫ МАТЧА");
-        if (gameController != null) {
-            gameController.showMatchResults();
+        listener.onMatchFinished();
+    }
+
+    // Откладывает действие на delay секунд игрового времени (вместо отдельных потоков со sleep)
+    private void schedule(double delay, Runnable action) {
+        pendingAction = action;
+        pendingActionDelay = delay;
+    }
+
+    private void runPendingAction(double deltaTime) {
+        if (pendingAction == null) return;
+
+        pendingActionDelay -= deltaTime;
+        if (pendingActionDelay <= 0) {
+            Runnable action = pendingAction;
+            pendingAction = null;
+            action.run();
         }
     }
 
     public void update(double deltaTime) {
+        runPendingAction(deltaTime);
+        if (remoteAuthority) {
+            if (localPlayerId != 0) {
+                getLocalPlayer().decayCorrection(CORRECTION_DECAY);
+            }
+            return;
+        }
+
         if (!gameState.isGameActive() || roundEnded || gameState.isMatchFinished()) return;
 
         roundTimer -= deltaTime;
         gameState.setRoundTime(Math.max(0, roundTimer));
 
-        if (roundTimer <= 0 && !roundEnded) {
+        if (roundTimer <= 0 && !roundEnded && !roundCompletionInProgress) {
             System.out.println("ВРЕМЯ ВЫШЛО! Ничья в раунде " + gameState.getRoundNumber());
             roundCompletionInProgress = true;
-            new Thread(() -> {
-                try {
-                    Thread.sleep(50);
-                    Platform.runLater(() -> {
-                        if (!roundEnded) {
-                            endRound(0); // Ничья
-                        }
-                    });
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+            schedule(ROUND_END_DELAY, () -> {
+                if (!roundEnded) {
+                    endRound(0); // Ничья
                 }
-            }).start();
+            });
         }
 
         gameState.getPlayer1().update(deltaTime);
@@ -410,9 +495,14 @@ public class GameEngine {
 
 
     public boolean activatePowerUp() {
+        if (localPlayerId == 0) return false;
+        if (remoteAuthority) {
+            // способность включит сервер, здесь только проверка перед отправкой запроса
+            return canActivatePowerUp();
+        }
         if (!gameState.isGameActive() || roundEnded || gameState.isMatchFinished()) return false;
 
-        Player localPlayer = isServer ? gameState.getPlayer1() : gameState.getPlayer2();
+        Player localPlayer = getLocalPlayer();
         boolean activated = localPlayer.activatePowerUp();
 
         if (activated) {
@@ -423,23 +513,107 @@ public class GameEngine {
     }
 
     public void processOpponentPowerUp() {
+        processPowerUp(getOpponentPlayer().getPlayerId());
+    }
+
+    public void processPowerUp(int playerId) {
+        if (remoteAuthority) return;
         if (!gameState.isGameActive() || roundEnded || gameState.isMatchFinished()) return;
 
-        Player opponent = isServer ? gameState.getPlayer2() : gameState.getPlayer1();
-        opponent.activatePowerUp();
-        System.out.println("Противник использовал способность!");
+        getPlayer(playerId).activatePowerUp();
+        System.out.println("Игрок " + playerId + " использовал способность!");
+    }
+
+    // Вызывается в конце тика, после всех изменений состояния
+    public void publishFrame() {
+        frames.publish(gameState, tickNumber, canActivatePowerUp());
+    }
+
+    // Последний опубликованный кадр, только для потока отрисовки
+    public StateFrame acquireFrame() {
+        return frames.acquire();
+    }
+
+    public GameSnapshot captureSnapshot() {
+        return GameSnapshot.capture(gameState, tickNumber);
+    }
+
+    // Клиент применяет снимок сервера. С первого снимка движок перестает считать физику сам
+    public void applySnapshot(GameSnapshot snapshot) {
+        if (!remoteAuthority) {
+            remoteAuthority = true;
+            System.out.println("Состояние игры ведет сервер (авторитетный режим)");
+        }
+        if (snapshot.getTick() <= lastSnapshotTick) return; // устаревший снимок
+        lastSnapshotTick = snapshot.getTick();
+
+        Player localPlayer = localPlayerId != 0 ? getLocalPlayer() : null;
+        double predictedX = localPlayer != null ? localPlayer.getX() : 0;
+        double predictedY = localPlayer != null ? localPlayer.getY() : 0;
+        int roundNumber = gameState.getRoundNumber();
+
+        boolean wasFinished = gameState.isMatchFinished();
+        snapshot.applyTo(gameState);
+        roundEnded = !gameState.isGameActive();
+        roundCompletionInProgress = false;
+
+        if (localPlayer != null) {
+            reconcile(localPlayer, predictedX, predictedY, roundNumber != gameState.getRoundNumber());
+        }
+
+        if (!wasFinished && gameState.isMatchFinished()) {
+            // сервер показывает результаты с той же задержкой
+            schedule(NEXT_ROUND_DELAY, this::showMatchResults);
+        }
+    }
+
+    // Сервер вернул своего игрока в подтвержденное состояние: повторяем поверх него
+    // еще не подтвержденный ввод, а разницу с прежним предсказанием гасим плавно
+    private void reconcile(Player localPlayer, double predictedX, double predictedY, boolean newRound) {
+        pendingInputs.discardUpTo(localPlayer.getLastInputSequence());
+
+        if (canProcessInput()) {
+            for (int i = 0; i < pendingInputs.size(); i++) {
+                Direction direction = pendingInputs.get(i);
+                if (direction != null) {
+                    localPlayer.move(direction, tickDuration);
+                    constrainPlayerToArena(localPlayer);
+                }
+            }
+        }
+
+        if (newRound) {
+            localPlayer.clearCorrection();
+        } else {
+            localPlayer.addCorrection(predictedX - localPlayer.getX(), predictedY - localPlayer.getY(),
+                    MAX_SMOOTHED_CORRECTION);
+        }
+    }
+
+    public boolean isRemoteAuthority() {
+        return remoteAuthority;
+    }
+
+    public long getTickNumber() {
+        return tickNumber;
     }
 
     public GameState getGameState() {
         return gameState;
     }
 
+    public double getTickDuration() {
+        return tickDuration;
+    }
+
     public boolean canProcessInput() {
         return gameState.isGameActive() && !roundEnded && !gameState.isMatchFinished();
     }
 
     public boolean canActivatePowerUp() {
-        Player localPlayer = isServer ? gameState.getPlayer1() : gameState.getPlayer2();
+        if (localPlayerId == 0) return false;
+
+        Player localPlayer = getLocalPlayer();
         return gameState.isGameActive() && !roundEnded && !gameState.isMatchFinished() && localPlayer.isPowerUpAvailable();
     }
 
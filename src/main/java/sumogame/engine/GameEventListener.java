@@ -0,0 +1,17 @@
+package sumogame.engine;
+
+/**
+ * Слушатель событий движка.
+ * Движок не знает ни про JavaFX, ни про контроллеры - только про этот интерфейс.
+ * Вызовы приходят из потока, который крутит симуляцию.
+ */
+public interface GameEventListener {
+    // Раунд завершен (0 - ничья, 1 или 2 - победитель)
+    default void onRoundResult(int winnerId) {}
+
+    // Матч завершен, можно показывать результаты
+    default void onMatchFinished() {}
+
+    // Пустой слушатель для безголового запуска
+    GameEventListener NONE = new GameEventListener() {};
+}
@@ -0,0 +1,50 @@
+package sumogame.engine;
+
+import sumogame.model.Direction;
+
+/**
+ * Кольцевой буфер ввода локального игрока, еще не подтвержденного сервером.
+ * Номер ввода уходит в PLAYER_MOVE (PlayerMove), сервер возвращает последний примененный.
+ * Номера растут, но могут идти с пропусками.
+ * При переполнении самые старые записи затираются.
+ */
+final class InputHistory {
+    private final int[] sequences;
+    private final Direction[] directions;
+    private int start; // индекс самой старой записи
+    private int size;
+
+    InputHistory(int capacity) {
+        this.sequences = new int[capacity];
+        this.directions = new Direction[capacity];
+    }
+
+    void add(int sequence, Direction direction) {
+        int index = (start + size) % sequences.length;
+        sequences[index] = sequence;
+        directions[index] = direction;
+        if (size < sequences.length) {
+            size++;
+        } else {
+            start = (start + 1) % sequences.length;
+        }
+    }
+
+    // Отбрасывает ввод, который сервер уже применил
+    void discardUpTo(int sequence) {
+        while (size > 0 && sequences[start] <= sequence) {
+            directions[start] = null;
+            start = (start + 1) % sequences.length;
+            size--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // i-я неподтвержденная запись от самой старой
+    Direction get(int i) {
+        return directions[(start + i) % directions.length];
+    }
+}
@@ -0,0 +1,35 @@
+package sumogame.engine;
+
+import sumogame.model.GameState;
+import sumogame.model.StateFrame;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Тройной буфер кадров состояния. Симуляция заполняет свой задний кадр и отдает его
+ * одной атомарной заменой, читатель забирает последний опубликованный.
+ * Кадров всего три, они переиспользуются - после создания ничего не выделяется.
+ * Писатель один (поток симуляции), читатель тоже один (поток отрисовки: рендерер и HUD).
+ * Рассылка снимков (captureSnapshot) и итоги матча читают живой GameState, но только из потока
+ * симуляции после тика - им буфер не нужен. Новому читателю из другого потока нужен свой StateBuffer:
+ * front у каждого буфера один.
+ */
+public final class StateBuffer {
+    private final AtomicReference<StateFrame> ready = new AtomicReference<>(new StateFrame());
+    private StateFrame back = new StateFrame();  // только поток симуляции
+    private StateFrame front = new StateFrame(); // только поток отрисовки
+    private long published;
+
+    public void publish(GameState state, long tick, boolean powerUpReady) {
+        back.copyFrom(state, tick, ++published, powerUpReady);
+        back = ready.getAndSet(back);
+    }
+
+    // Последний опубликованный кадр. Не меняется, пока тот же поток снова не вызовет acquire
+    public StateFrame acquire() {
+        if (ready.get().getVersion() > front.getVersion()) {
+            front = ready.getAndSet(front);
+        }
+        return front;
+    }
+}
@@ -8,4 +8,26 @@ public class GameConfig {
     public static final double PLAYER_BASE_STRENGTH = 1.0;
     public static final double PLAYER_BASE_SPEED = 3.0;
     public static final double PLAYER_BASE_SIZE = 25.0;
-}
\ No newline at end of file
+
+    // Частота симуляции (тиков в секунду), можно переопределить через -Dsumogame.tickRate=120
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int TICK_RATE = Integer.getInteger("sumogame.tickRate", DEFAULT_TICK_RATE);
+    // Скорость игрока задана в пикселях за "шаг", шагов в секунду при зажатой клавише
+    public static final double MOVE_STEPS_PER_SECOND = 30.0;
+    // Авторитетный режим: сервер рассылает снимки состояния с этой частотой (в секунду),
+    // клиенты шлют только ввод. 0 - старый режим, каждая сторона считает физику сама
+    public static final int DEFAULT_SNAPSHOT_RATE = 20;
+    public static final int SNAPSHOT_RATE = Integer.getInteger("sumogame.snapshotRate", DEFAULT_SNAPSHOT_RATE);
+    // Запас между готовностью обоих игроков и стартом матча (к нему добавляется 2 RTT),
+    // за это время ROUND_START успевает дойти до клиентов
+    public static final int MATCH_START_LEAD_MS = 500;
+    // Ограничение частоты отрисовки (кадров в секунду), 0 - каждый импульс JavaFX.
+    // Ввод и симуляция выполняются каждый импульс независимо от ограничения
+    public static final int FPS_CAP = Integer.getInteger("sumogame.fpsCap", 0);
+    // Частота отрисовки, когда окно не в фокусе; в свернутом окне не рисуется ничего
+    public static final int LOW_POWER_FPS = Integer.getInteger("sumogame.lowPowerFps", 10);
+    // Бюджет времени отрисовки кадра, мс (8 - около 120 Гц). Дольше - качество понижается
+    public static final int RENDER_BUDGET_MS = Integer.getInteger("sumogame.renderBudgetMs", 8);
+    // Максимальное время кадра, которое догоняет симуляция (защита от пауз GC)
+    public static final double MAX_FRAME_TIME = 0.25;
+}
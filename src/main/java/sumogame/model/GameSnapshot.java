@@ -0,0 +1,140 @@
+package sumogame.model;
+
+/**
+ * Неизменяемый снимок состояния матча на конкретном тике.
+ * В авторитетном режиме сервер рассылает такие снимки, а клиент
+ * не считает физику сам, а только применяет их к своему GameState.
+ * По сети передается в сжатом виде, см. SnapshotCodec.
+ */
+public final class GameSnapshot {
+    private final long tick;
+    private final int roundNumber;
+    private final int player1Score;
+    private final int player2Score;
+    private final double roundTime;
+    private final boolean gameActive;
+    private final boolean matchFinished;
+    private final ArenaType arenaType;
+    private final PlayerState player1;
+    private final PlayerState player2;
+
+    public GameSnapshot(long tick, int roundNumber, int player1Score, int player2Score, double roundTime,
+                        boolean gameActive, boolean matchFinished, ArenaType arenaType,
+                        PlayerState player1, PlayerState player2) {
+        this.tick = tick;
+        this.roundNumber = roundNumber;
+        this.player1Score = player1Score;
+        this.player2Score = player2Score;
+        this.roundTime = roundTime;
+        this.gameActive = gameActive;
+        this.matchFinished = matchFinished;
+        this.arenaType = arenaType;
+        this.player1 = player1;
+        this.player2 = player2;
+    }
+
+    public static GameSnapshot capture(GameState state, long tick) {
+        return new GameSnapshot(tick, state.getRoundNumber(), state.getPlayer1Score(), state.getPlayer2Score(),
+                state.getRoundTime(), state.isGameActive(), state.isMatchFinished(),
+                state.getCurrentArena().getType(),
+                PlayerState.capture(state.getPlayer1()), PlayerState.capture(state.getPlayer2()));
+    }
+
+    // Переносит снимок в состояние клиента. Сеттеры с логами вызываются только при изменении
+    public void applyTo(GameState state) {
+        boolean newRound = roundNumber != state.getRoundNumber();
+        if (newRound) {
+            state.setRoundNumber(roundNumber);
+        }
+        if (arenaType != state.getCurrentArena().getType()) {
+            state.setCurrentArena(arenaType);
+        }
+        if (player1Score != state.getPlayer1Score()) {
+            state.setPlayer1Score(player1Score);
+        }
+        if (player2Score != state.getPlayer2Score()) {
+            state.setPlayer2Score(player2Score);
+        }
+        if (gameActive != state.isGameActive()) {
+            state.setGameActive(gameActive);
+        }
+        if (matchFinished != state.isMatchFinished()) {
+            state.setMatchFinished(matchFinished);
+        }
+        state.setRoundTime(roundTime);
+        state.setSnapshotTick(tick);
+
+        player1.applyTo(state.getPlayer1());
+        player2.applyTo(state.getPlayer2());
+        if (newRound) {
+            // игроки переставлены на старт, интерполировать от старой позиции не нужно
+            state.getPlayer1().storePreviousPosition();
+            state.getPlayer2().storePreviousPosition();
+        }
+    }
+
+    // Через сколько тиков отправлять снимок при заданной частоте снимков
+    public static int intervalTicks(int tickRate, int snapshotRate) {
+        return Math.max(1, Math.round((float) tickRate / snapshotRate));
+    }
+
+    public long getTick() { return tick; }
+    public int getRoundNumber() { return roundNumber; }
+    public int getPlayer1Score() { return player1Score; }
+    public int getPlayer2Score() { return player2Score; }
+    public double getRoundTime() { return roundTime; }
+    public boolean isGameActive() { return gameActive; }
+    public boolean isMatchFinished() { return matchFinished; }
+    public ArenaType getArenaType() { return arenaType; }
+    public PlayerState getPlayer1() { return player1; }
+    public PlayerState getPlayer2() { return player2; }
+
+    /**
+     * Состояние одного игрока в снимке.
+     */
+    public static final class PlayerState {
+        private final double x;
+        private final double y;
+        private final double size;
+        private final double speed;
+        private final double strength;
+        private final double powerUpTimer;
+        private final boolean powerUpAvailable;
+        private final boolean powerUpActive;
+        private final int lastInputSequence; // для сверки предсказания на клиенте
+
+        public PlayerState(double x, double y, double size, double speed, double strength,
+                           double powerUpTimer, boolean powerUpAvailable, boolean powerUpActive,
+                           int lastInputSequence) {
+            this.x = x;
+            this.y = y;
+            this.size = size;
+            this.speed = speed;
+            this.strength = strength;
+            this.powerUpTimer = powerUpTimer;
+            this.powerUpAvailable = powerUpAvailable;
+            this.powerUpActive = powerUpActive;
+            this.lastInputSequence = lastInputSequence;
+        }
+
+        public static PlayerState capture(Player player) {
+            return new PlayerState(player.getX(), player.getY(), player.getCurrentSize(),
+                    player.getCurrentSpeed(), player.getCurrentStrength(), player.getPowerUpRemainingTime(),
+                    player.isPowerUpAvailable(), player.isPowerUpActive(), player.getLastInputSequence());
+        }
+
+        void applyTo(Player player) {
+            player.applyState(x, y, size, speed, strength, powerUpTimer, powerUpAvailable, powerUpActive, lastInputSequence);
+        }
+
+        public double getX() { return x; }
+        public double getY() { return y; }
+        public double getSize() { return size; }
+        public double getSpeed() { return speed; }
+        public double getStrength() { return strength; }
+        public double getPowerUpTimer() { return powerUpTimer; }
+        public boolean isPowerUpAvailable() { return powerUpAvailable; }
+        public boolean isPowerUpActive() { return powerUpActive; }
+        public int getLastInputSequence() { return lastInputSequence; }
+    }
+}
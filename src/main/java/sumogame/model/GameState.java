@@ -12,6 +12,7 @@ public class GameState {
     private Arena currentArena;
     private int[] roundWinners;
     private int matchWinner = -1;
+    private long snapshotTick = -1; // тик последнего примененного снимка сервера
 
     public GameState() {
         roundWinners = new int[GameConfig.TOTAL_ROUNDS];
@@ -38,6 +39,12 @@ public class GameState {
 
     public int getRoundNumber() { return roundNumber; }
 
+    // Номер раунда из снимка сервера
+    public void setRoundNumber(int roundNumber) {
+        this.roundNumber = roundNumber;
+        System.out.println("НОВЫЙ РАУНД: " + roundNumber);
+    }
+
     public void incrementRoundNumber() {
         if (roundNumber < GameConfig.TOTAL_ROUNDS) {
             roundNumber++;
@@ -98,4 +105,7 @@ public class GameState {
     public void setMatchWinner(int matchWinner) {
         this.matchWinner = matchWinner;
     }
+
+    public long getSnapshotTick() { return snapshotTick; }
+    public void setSnapshotTick(long snapshotTick) { this.snapshotTick = snapshotTick; }
 }
\ No newline at end of file
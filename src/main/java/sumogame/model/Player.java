@@ -11,6 +11,9 @@ public class Player {
     private double currentSpeed;
     private double currentSize;
     private double x, y;
+    private double prevX, prevY; // позиция на начало тика, для интерполяции при отрисовке
+    private double correctionX, correctionY; // визуальное смещение после исправления предсказания, гаснет за несколько тиков
+    private int lastInputSequence; // номер последнего PLAYER_MOVE этого игрока, обработанного сервером
     private boolean powerUpAvailable;
     private boolean powerUpActive;
     private double powerUpTimer;
@@ -24,6 +27,8 @@ public class Player {
         resetParameters();
         this.x = startX;
         this.y = startY;
+        this.prevX = startX;
+        this.prevY = startY;
         this.powerUpAvailable = true;
         this.powerUpActive = false;
         this.powerUpTimer = 0;
@@ -76,6 +81,10 @@ public class Player {
     public void resetForNewRound(double startX, double startY) {
         this.x = startX;
         this.y = startY;
+        this.prevX = startX;
+        this.prevY = startY;
+        this.correctionX = 0;
+        this.correctionY = 0;
         resetParameters();
         this.powerUpAvailable = true;
         this.powerUpActive = false;
@@ -92,17 +101,65 @@ public class Player {
         this.originalSize = BASE_SIZE;
     }
 
-    public void move(Direction direction) {
+    // Движение за один тик симуляции длительностью deltaTime
+    public void move(Direction direction, double deltaTime) {
         if (direction == null) {
             System.out.println("Игрок " + playerId + ": попытка движения в null направлении");
             return;
         }
 
-        double[] newPosition = direction.calculateNewPosition(x, y, currentSpeed);
+        double step = currentSpeed * GameConfig.MOVE_STEPS_PER_SECOND * deltaTime;
+        double[] newPosition = direction.calculateNewPosition(x, y, step);
         this.x = newPosition[0];
         this.y = newPosition[1];
     }
 
+    // Запоминаем позицию перед тиком
+    public void storePreviousPosition() {
+        this.prevX = x;
+        this.prevY = y;
+    }
+
+    // Позиция между предыдущим и текущим тиком, alpha от 0 до 1
+    public double getInterpolatedX(double alpha) {
+        return prevX + (x - prevX) * alpha + correctionX;
+    }
+
+    public double getInterpolatedY(double alpha) {
+        return prevY + (y - prevY) * alpha + correctionY;
+    }
+
+    // Сервер поправил предсказанную позицию: на экране игрок остается на месте и плавно доезжает.
+    // Слишком большую ошибку не сглаживаем, а сразу переставляем
+    public void addCorrection(double dx, double dy, double maxDistance) {
+        correctionX += dx;
+        correctionY += dy;
+        if (correctionX * correctionX + correctionY * correctionY > maxDistance * maxDistance) {
+            clearCorrection();
+        }
+    }
+
+    // Вызывается раз в тик, factor - доля смещения, которая остается
+    public void decayCorrection(double factor) {
+        correctionX *= factor;
+        correctionY *= factor;
+        if (Math.abs(correctionX) < 0.01 && Math.abs(correctionY) < 0.01) {
+            clearCorrection();
+        }
+    }
+
+    public void clearCorrection() {
+        correctionX = 0;
+        correctionY = 0;
+    }
+
+    // Сервер получил PLAYER_MOVE этого игрока; опоздавший номер подтверждение не откатывает
+    public void acknowledgeInput(int sequence) {
+        if (sequence > lastInputSequence) {
+            lastInputSequence = sequence;
+        }
+    }
+
     public boolean collidesWith(Player other) {
         double dx = x - other.x;
         double dy = y - other.y;
@@ -125,8 +182,24 @@ public class Player {
     public boolean isPowerUpAvailable() { return powerUpAvailable; }
     public boolean isPowerUpActive() { return powerUpActive; }
     public double getPowerUpRemainingTime() { return Math.max(0, powerUpTimer); }
+    public int getLastInputSequence() { return lastInputSequence; }
     public String getColorHex() { return type.getColorHex(); }
 
+    // Состояние из снимка сервера (авторитетный режим), без логики способностей
+    public void applyState(double x, double y, double size, double speed, double strength,
+                           double powerUpTimer, boolean powerUpAvailable, boolean powerUpActive,
+                           int lastInputSequence) {
+        this.x = x;
+        this.y = y;
+        this.currentSize = size;
+        this.currentSpeed = speed;
+        this.currentStrength = strength;
+        this.powerUpTimer = powerUpTimer;
+        this.powerUpAvailable = powerUpAvailable;
+        this.powerUpActive = powerUpActive;
+        this.lastInputSequence = lastInputSequence;
+    }
+
     public void setPosition(double x, double y) {
         this.x = x;
         this.y = y;
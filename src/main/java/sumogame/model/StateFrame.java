@@ -0,0 +1,106 @@
+package sumogame.model;
+
+/**
+ * Согласованный кадр состояния матча для отрисовки и HUD.
+ * В отличие от GameSnapshot (неизменяемый, уходит по сети) кадр переиспользуется:
+ * движок заполняет его в конце тика и публикует через StateBuffer, а читатели
+ * видят тик целиком и не трогают живые GameState и Player, которые меняет симуляция.
+ */
+public final class StateFrame {
+    private volatile long version; // номер публикации, 0 - кадр еще не заполнялся
+    private long tick;
+    private long snapshotTick;
+    private int roundNumber;
+    private int player1Score;
+    private int player2Score;
+    private double roundTime;
+    private boolean gameActive;
+    private boolean matchFinished;
+    private boolean powerUpReady; // локальный игрок может активировать способность
+    private Arena arena;
+    private final PlayerFrame player1 = new PlayerFrame();
+    private final PlayerFrame player2 = new PlayerFrame();
+
+    // Копирует состояние без выделения памяти: арена неизменяемая, остальное - примитивы
+    public void copyFrom(GameState state, long tick, long version, boolean powerUpReady) {
+        this.tick = tick;
+        this.snapshotTick = state.getSnapshotTick();
+        this.roundNumber = state.getRoundNumber();
+        this.player1Score = state.getPlayer1Score();
+        this.player2Score = state.getPlayer2Score();
+        this.roundTime = state.getRoundTime();
+        this.gameActive = state.isGameActive();
+        this.matchFinished = state.isMatchFinished();
+        this.powerUpReady = powerUpReady;
+        this.arena = state.getCurrentArena();
+        player1.copyFrom(state.getPlayer1());
+        player2.copyFrom(state.getPlayer2());
+        this.version = version;
+    }
+
+    public long getVersion() { return version; }
+    public long getTick() { return tick; }
+    public long getSnapshotTick() { return snapshotTick; }
+    public int getRoundNumber() { return roundNumber; }
+    public int getPlayer1Score() { return player1Score; }
+    public int getPlayer2Score() { return player2Score; }
+    public double getRoundTime() { return roundTime; }
+    public boolean isGameActive() { return gameActive; }
+    public boolean isMatchFinished() { return matchFinished; }
+    public boolean isPowerUpReady() { return powerUpReady; }
+    public Arena getCurrentArena() { return arena; }
+    public PlayerFrame getPlayer1() { return player1; }
+    public PlayerFrame getPlayer2() { return player2; }
+
+    /**
+     * Игрок в кадре. Хранит начало и конец тика (с визуальной поправкой), чтобы рисовать между ними.
+     */
+    public static final class PlayerFrame {
+        private int playerId;
+        private CharacterType type;
+        private double x;
+        private double y;
+        private double fromX;
+        private double fromY;
+        private double toX;
+        private double toY;
+        private double currentSize;
+        private boolean powerUpAvailable;
+        private boolean powerUpActive;
+        private double powerUpRemainingTime;
+
+        void copyFrom(Player player) {
+            playerId = player.getPlayerId();
+            type = player.getType();
+            x = player.getX();
+            y = player.getY();
+            fromX = player.getInterpolatedX(0);
+            fromY = player.getInterpolatedY(0);
+            toX = player.getInterpolatedX(1);
+            toY = player.getInterpolatedY(1);
+            currentSize = player.getCurrentSize();
+            powerUpAvailable = player.isPowerUpAvailable();
+            powerUpActive = player.isPowerUpActive();
+            powerUpRemainingTime = player.getPowerUpRemainingTime();
+        }
+
+        // Позиция между предыдущим и текущим тиком, alpha от 0 до 1
+        public double getInterpolatedX(double alpha) {
+            return fromX + (toX - fromX) * alpha;
+        }
+
+        public double getInterpolatedY(double alpha) {
+            return fromY + (toY - fromY) * alpha;
+        }
+
+        public int getPlayerId() { return playerId; }
+        public CharacterType getType() { return type; }
+        public String getColorHex() { return type.getColorHex(); }
+        public double getX() { return x; }
+        public double getY() { return y; }
+        public double getCurrentSize() { return currentSize; }
+        public boolean isPowerUpAvailable() { return powerUpAvailable; }
+        public boolean isPowerUpActive() { return powerUpActive; }
+        public double getPowerUpRemainingTime() { return powerUpRemainingTime; }
+    }
+}
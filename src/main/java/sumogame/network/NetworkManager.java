@@ -1,28 +1,60 @@
 package sumogame.network;
 
+import sumogame.network.service.LatencyEstimator;
 import sumogame.network.service.NetworkService;
 import sumogame.network.service.GameServer;
 import sumogame.network.service.GameClient;
+import sumogame.network.service.LoopbackNetworkService;
+import sumogame.network.service.Transport;
+import sumogame.network.udp.LinkSimulator;
+import sumogame.network.udp.UdpNetworkService;
 import sumogame.network.message.Message;
 import sumogame.network.message.MessageHandler;
+import sumogame.network.message.PlayerMove;
+import sumogame.network.message.SnapshotCodec;
 import sumogame.controller.GameController;
 import sumogame.model.CharacterType;
+import sumogame.model.GameConfig;
+import sumogame.model.GameSnapshot;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class NetworkManager implements MessageHandler {
+    // Замер задержки: несколько PING сразу после подключения, потом раз в секунду
+    private static final int INITIAL_PINGS = 5;
+    private static final long INITIAL_PING_SPACING_MS = 100;
+    private static final long PING_INTERVAL_MS = 1000;
+    private static final int LATENCY_LOG_EVERY = 10;
+
     private final NetworkService networkService;
     private final GameController gameController;
     private final boolean isServer;
     private final int port;
     private CharacterType myCharacter;
     private boolean opponentConnected = false;
+    // хост кодирует снимки для клиента, клиент восстанавливает их по базе
+    private final SnapshotCodec snapshotCodec = new SnapshotCodec();
+    private final LatencyEstimator latency = new LatencyEstimator();
+    private ScheduledExecutorService pingScheduler;
 
     public NetworkManager(GameController controller, boolean isServer) {
+        this(controller, isServer, Transport.current());
+    }
+
+    public NetworkManager(GameController controller, boolean isServer, Transport transport) {
         this.gameController = controller;
         this.isServer = isServer;
         this.port = controller.getPort();
 
-        // создаем сервер/клиент в зависимости от параметра
-        if (isServer) {
+        // создаем сервер/клиент в зависимости от параметра и транспорта
+        if (transport == Transport.LOOPBACK) {
+            this.networkService = new LoopbackNetworkService(this, isServer, port);
+        } else if (transport == Transport.UDP) {
+            this.networkService = new UdpNetworkService(this, isServer, controller.getServerAddress(), port,
+                    LinkSimulator.fromSystemProperties());
+        } else if (isServer) {
             this.networkService = new GameServer(this, port);
         } else {
             String serverAddress = controller.getServerAddress();
@@ -54,24 +86,21 @@ public class NetworkManager implements MessageHandler {
         boolean connected = networkService.connect(address);
         if (connected) {
             System.out.println("Клиент подключен к " + address + ":" + port);
+            startPinging();
         } else {
             System.out.println("Не удалось подключиться к " + address + ":" + port);
         }
     }
 
-    // Отправка движения игрока
-    public void sendPlayerMove(String direction) {
+    // Отправка движения игрока с номером ввода для сверки предсказания
+    public void sendPlayerMove(String direction, int sequence) {
         if (!networkService.isConnected()) {
             System.out.println("Не подключен к сети, движение не отправлено");
             return;
         }
 
-        Message message = new Message(
-                Message.Type.PLAYER_MOVE,
-                direction,
-                networkService.getPlayerId()
-        );
-        networkService.sendMessage(message);
+        Message message = PlayerMove.create(direction, sequence, networkService.getPlayerId());
+        networkService.queueMessage(message);
         System.out.println("Отправлено движение: " + direction);
     }
 
@@ -119,7 +148,62 @@ public class NetworkManager implements MessageHandler {
         System.out.println("Сервер отправил результат раунда: победитель " + winnerId);
     }
 
+    // Снимок состояния для клиента (хост в авторитетном режиме)
+    public void sendSnapshot(GameSnapshot snapshot) {
+        if (!isServer || !networkService.isConnected()) return;
+
+        networkService.queueMessage(new Message(
+                Message.Type.STATE_SNAPSHOT,
+                snapshotCodec.encode(snapshot),
+                networkService.getPlayerId()
+        ));
+    }
+
+    // Конец тика: движения и снимки, накопленные за тик, уходят одной записью
+    public void flush() {
+        networkService.flush();
+    }
+
+    // Хост назначает момент старта матча по своим часам
+    public void sendRoundStart(long startAtMicros, long leadMicros) {
+        if (!isServer || !networkService.isConnected()) return;
+
+        networkService.sendMessage(latency.createRoundStart(startAtMicros, leadMicros, networkService.getPlayerId()));
+        System.out.println("Старт матча назначен через " + leadMicros / 1000 + " мс");
+    }
+
+    private synchronized void startPinging() {
+        if (pingScheduler != null) return;
+
+        pingScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Network-Ping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < INITIAL_PINGS; i++) {
+            pingScheduler.schedule(this::sendPing, i * INITIAL_PING_SPACING_MS, TimeUnit.MILLISECONDS);
+        }
+        pingScheduler.scheduleAtFixedRate(this::sendPing, PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void sendPing() {
+        if (networkService.isConnected()) {
+            networkService.sendMessage(LatencyEstimator.createPing(networkService.getPlayerId()));
+        }
+    }
+
+    // RTT, джиттер и смещение часов до второй стороны
+    public LatencyEstimator getLatency() {
+        return latency;
+    }
+
     public void disconnect() {
+        synchronized (this) {
+            if (pingScheduler != null) {
+                pingScheduler.shutdownNow();
+                pingScheduler = null;
+            }
+        }
         networkService.disconnect();
     }
 
@@ -135,13 +219,9 @@ public class NetworkManager implements MessageHandler {
 
         switch (message.getType()) {
             case PLAYER_MOVE:
-                // Движение противника
-                gameController.handleNetworkInput(message.getData());
-                break;
-
             case POWER_UP:
-                // Активация способности противника
-                gameController.handleNetworkPowerUp();
+                // ввод противника применится в начале следующего тика
+                gameController.queueNetworkMessage(message);
                 break;
 
             case PLAYER_JOIN:
@@ -151,7 +231,36 @@ public class NetworkManager implements MessageHandler {
 
             case ROUND_RESULT:
                 // результат раунда от сервера
-                handleRoundResult(message.getData());
+                handleRoundResult(message);
+                break;
+
+            case ASSIGN_PLAYER:
+                // выделенный сервер назначил нам номер игрока
+                handleAssignPlayer(message.getData());
+                break;
+
+            case STATE_SNAPSHOT:
+                // состояние от сервера в авторитетном режиме
+                handleSnapshot(message.getPayload());
+                break;
+
+            case SNAPSHOT_ACK:
+                // клиент получил снимок, дальше шлем дельту от него
+                handleSnapshotAck(message.getData());
+                break;
+
+            case PING:
+                // отвечаем сразу из потока сети
+                networkService.sendMessage(LatencyEstimator.createPong(message, networkService.getPlayerId()));
+                break;
+
+            case PONG:
+                handlePong(message);
+                break;
+
+            case ROUND_START:
+                // сервер назначил момент старта матча
+                handleRoundStart(message);
                 break;
 
             default:
@@ -169,15 +278,95 @@ public class NetworkManager implements MessageHandler {
         }
     }
 
-    private void handleRoundResult(String winnerIdStr) {
+    private void handleRoundResult(Message message) {
         try {
-            int winnerId = Integer.parseInt(winnerIdStr);
+            int winnerId = Integer.parseInt(message.getData());
             System.out.println("Получен результат раунда: победитель " + winnerId);
-            if (gameController != null) {
-                gameController.handleRoundResult(winnerId);
+            gameController.queueNetworkMessage(message);
+        } catch (NumberFormatException e) {
+            System.err.println("Некорректный ID победителя: " + message.getData());
+        }
+    }
+
+    private void handleSnapshot(byte[] payload) {
+        if (isServer || payload == null) return;
+
+        GameSnapshot snapshot;
+        try {
+            snapshot = snapshotCodec.decode(payload);
+        } catch (RuntimeException e) {
+            System.err.println("Некорректный снимок состояния: " + e.getMessage());
+            return;
+        }
+        gameController.handleSnapshot(snapshot);
+
+        // подтверждаем, чтобы следующий снимок пришел дельтой от этого
+        networkService.sendMessage(new Message(
+                Message.Type.SNAPSHOT_ACK,
+                String.valueOf(snapshot.getTick()),
+                networkService.getPlayerId()
+        ));
+    }
+
+    private void handleSnapshotAck(String tick) {
+        if (!isServer) return;
+
+        try {
+            snapshotCodec.acknowledge(Long.parseLong(tick));
+        } catch (NumberFormatException e) {
+            System.err.println("Некорректное подтверждение снимка: " + tick);
+        }
+    }
+
+    private void handlePong(Message message) {
+        try {
+            latency.onPong(message);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (latency.getSampleCount() % LATENCY_LOG_EVERY == 1) {
+            System.out.println("Связь: " + latency);
+        }
+    }
+
+    private void handleRoundStart(Message message) {
+        if (isServer) return;
+
+        long localStart;
+        try {
+            localStart = latency.roundStartLocalMicros(message);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        long now = LatencyEstimator.nowMicros();
+        System.out.println("Старт матча через " + Math.max(0, localStart - now) / 1000 + " мс (" + latency + ")");
+        gameController.scheduleMatchStart(localStart * 1000);
+    }
+
+    // Запас до старта: минимальный плюс два RTT
+    public long matchStartLeadMicros() {
+        long lead = GameConfig.MATCH_START_LEAD_MS * 1000L;
+        if (latency.hasSamples()) {
+            lead += (long) (2 * latency.getRttMillis() * 1000);
+        }
+        return lead;
+    }
+
+    private void handleAssignPlayer(String playerIdStr) {
+        if (isServer) return;
+
+        try {
+            int playerId = Integer.parseInt(playerIdStr);
+            if (networkService instanceof GameClient) {
+                ((GameClient) networkService).setPlayerId(playerId);
             }
+            System.out.println("Сервер назначил нам номер игрока: " + playerId);
+            gameController.assignLocalPlayer(playerId);
         } catch (NumberFormatException e) {
-            System.err.println("Некорректный ID победителя: " + winnerIdStr);
+            System.err.println("Некорректный номер игрока: " + playerIdStr);
         }
     }
 
@@ -185,6 +374,7 @@ public class NetworkManager implements MessageHandler {
     public void onClientConnected(int playerId) {
         System.out.println("Противник подключился: Player " + playerId);
         opponentConnected = true;
+        startPinging();
 
         if (gameController != null) {
             gameController.onOpponentConnected();
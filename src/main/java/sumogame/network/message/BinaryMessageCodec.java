@@ -0,0 +1,259 @@
+package sumogame.network.message;
+
+import sumogame.model.CharacterType;
+import sumogame.model.Direction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Компактный бинарный формат.
+ *
+ * Кадр: [длина, varint 1-2 байта][версия][тип][данные]
+ * Тип - ordinal из Message.Type, старший бит означает "данные строкой",
+ * следующий - "двоичные данные" (payload занимает остаток кадра).
+ * Короткие сообщения (движение, способность, персонаж, результат раунда, номер игрока)
+ * кладут номер игрока и значение в один байт: (playerId << 4) | значение.
+ * За байтом движения идет номер ввода (int, PlayerMove), поэтому движение занимает 8 байт,
+ * движение без номера - 4.
+ * Для таких сообщений кодирование и разбор не создают объектов:
+ * значения берутся из enum, а разобранные сообщения - из заранее созданной таблицы
+ * (кроме движения с номером: его строка собирается при разборе).
+ */
+public class BinaryMessageCodec implements MessageCodec {
+    public static final byte VERSION = 1;
+
+    private static final int STRING_PAYLOAD_FLAG = 0x80;
+    private static final int BYTES_PAYLOAD_FLAG = 0x40;
+    private static final int MAX_FRAME_LENGTH = 0x3FFF; // максимум для двухбайтового varint
+    private static final String POWER_UP_DATA = "ACTIVATE";
+    private static final String[] NUMBERS = {"0", "1", "2", "3", "4", "5", "6", "7",
+            "8", "9", "10", "11", "12", "13", "14", "15"};
+
+    private static final Message.Type[] TYPES = Message.Type.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Message[][] FLYWEIGHTS = new Message[TYPES.length][256];
+
+    static {
+        // готовые экземпляры для всех коротких сообщений от игроков 1 и 2
+        for (Message.Type type : TYPES) {
+            for (int playerId = 1; playerId <= 2; playerId++) {
+                for (int value = 0; value < 16; value++) {
+                    String data = compactData(type, value);
+                    if (data != null) {
+                        FLYWEIGHTS[type.ordinal()][(playerId << 4) | value] = new Message(type, data, playerId);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int encode(Message message, ByteBuffer out) {
+        if (message.getPayload() != null) {
+            return encodeBytes(message, out);
+        }
+        int value = compactValue(message);
+        if (value >= 0 && message.getPlayerId() >= 0 && message.getPlayerId() < 16) {
+            int sequence = message.getType() == Message.Type.PLAYER_MOVE ? PlayerMove.sequence(message) : -1;
+            int bodyLength = sequence >= 0 ? 7 : 3;
+            if (out.remaining() < bodyLength + 1) return -1;
+            out.put((byte) bodyLength);
+            out.put(VERSION);
+            out.put((byte) message.getType().ordinal());
+            out.put((byte) ((message.getPlayerId() << 4) | value));
+            if (sequence >= 0) {
+                out.putInt(sequence);
+            }
+            return bodyLength + 1;
+        }
+        return encodeString(message, out);
+    }
+
+    // Запасной вариант для сообщений, которые не помещаются в один байт
+    private int encodeString(Message message, ByteBuffer out) {
+        byte[] data = message.getData() != null
+                ? message.getData().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        int bodyLength = 2 + 1 + 2 + data.length;
+        if (bodyLength > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Сообщение слишком большое: " + bodyLength + " байт");
+        }
+
+        int frameLength = varintSize(bodyLength) + bodyLength;
+        if (out.remaining() < frameLength) return -1;
+
+        writeVarint(out, bodyLength);
+        out.put(VERSION);
+        out.put((byte) (message.getType().ordinal() | STRING_PAYLOAD_FLAG));
+        out.put((byte) message.getPlayerId());
+        out.putShort((short) data.length);
+        out.put(data);
+        return frameLength;
+    }
+
+    // [длина][версия][тип|0x40][игрок][payload до конца кадра]
+    private int encodeBytes(Message message, ByteBuffer out) {
+        byte[] payload = message.getPayload();
+        int bodyLength = 3 + payload.length;
+        if (bodyLength > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Сообщение слишком большое: " + bodyLength + " байт");
+        }
+
+        int frameLength = varintSize(bodyLength) + bodyLength;
+        if (out.remaining() < frameLength) return -1;
+
+        writeVarint(out, bodyLength);
+        out.put(VERSION);
+        out.put((byte) (message.getType().ordinal() | BYTES_PAYLOAD_FLAG));
+        out.put((byte) message.getPlayerId());
+        out.put(payload);
+        return frameLength;
+    }
+
+    @Override
+    public Message decode(ByteBuffer in) {
+        int start = in.position();
+        if (!in.hasRemaining()) return null;
+
+        int bodyLength = in.get() & 0xFF;
+        if ((bodyLength & 0x80) != 0) {
+            if (!in.hasRemaining()) {
+                in.position(start);
+                return null;
+            }
+            bodyLength = (bodyLength & 0x7F) | ((in.get() & 0xFF) << 7);
+        }
+        if (in.remaining() < bodyLength) {
+            in.position(start);
+            return null;
+        }
+
+        int frameEnd = in.position() + bodyLength;
+        try {
+            if (bodyLength < 2) {
+                throw new IllegalArgumentException("Слишком короткий кадр: " + bodyLength);
+            }
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия протокола: " + version);
+            }
+
+            int typeByte = in.get() & 0xFF;
+            int typeIndex = typeByte & ~(STRING_PAYLOAD_FLAG | BYTES_PAYLOAD_FLAG);
+            if (typeIndex >= TYPES.length) {
+                throw new IllegalArgumentException("Неизвестный тип сообщения: " + typeIndex);
+            }
+            Message.Type type = TYPES[typeIndex];
+
+            if ((typeByte & STRING_PAYLOAD_FLAG) != 0) {
+                return decodeString(type, in);
+            }
+            if ((typeByte & BYTES_PAYLOAD_FLAG) != 0) {
+                byte[] payload = new byte[frameEnd - in.position() - 1];
+                int playerId = in.get();
+                in.get(payload);
+                return new Message(type, payload, playerId);
+            }
+
+            int packed = in.get() & 0xFF;
+            if (type == Message.Type.PLAYER_MOVE && frameEnd - in.position() >= 4) {
+                String direction = compactData(type, packed & 0x0F);
+                int sequence = in.getInt();
+                return new Message(type, direction != null ? PlayerMove.data(direction, sequence) : null, packed >> 4);
+            }
+            Message message = FLYWEIGHTS[typeIndex][packed];
+            if (message != null) {
+                return message;
+            }
+            // редкий случай: нестандартный номер игрока
+            return new Message(type, compactData(type, packed & 0x0F), packed >> 4);
+        } finally {
+            // при любой ошибке кадр пропускается целиком, поток не теряет синхронизацию
+            in.position(frameEnd);
+        }
+    }
+
+    private Message decodeString(Message.Type type, ByteBuffer in) {
+        int playerId = in.get();
+        int length = in.getShort() & 0xFFFF;
+        byte[] data = new byte[length];
+        in.get(data);
+        return new Message(type, new String(data, StandardCharsets.UTF_8), playerId);
+    }
+
+    // Значение для однобайтовой упаковки или -1, если сообщение так не упаковывается
+    private static int compactValue(Message message) {
+        String data = message.getData();
+        if (data == null || message.getType() == null) return -1;
+
+        try {
+            switch (message.getType()) {
+                case PLAYER_JOIN:
+                    return CharacterType.valueOf(data).ordinal();
+                case PLAYER_MOVE:
+                    return moveDirection(data);
+                case POWER_UP:
+                    return POWER_UP_DATA.equals(data) ? 0 : -1;
+                case ROUND_RESULT:
+                case ASSIGN_PLAYER:
+                    return smallNumber(data);
+                default:
+                    return -1;
+            }
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String compactData(Message.Type type, int value) {
+        switch (type) {
+            case PLAYER_JOIN:
+                return value < CharacterType.values().length ? CharacterType.values()[value].name() : null;
+            case PLAYER_MOVE:
+                return value < Direction.values().length ? Direction.values()[value].name() : null;
+            case POWER_UP:
+                return value == 0 ? POWER_UP_DATA : null;
+            case ROUND_RESULT:
+            case ASSIGN_PLAYER:
+                return NUMBERS[value];
+            default:
+                return null;
+        }
+    }
+
+    // Направление из "направление;номер" без выделения подстроки
+    private static int moveDirection(String data) {
+        for (Direction direction : DIRECTIONS) {
+            String name = direction.name();
+            if (data.startsWith(name)
+                    && (data.length() == name.length() || data.charAt(name.length()) == PlayerMove.SEPARATOR)) {
+                return direction.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    // Разбор числа 0..15 без Integer.parseInt
+    private static int smallNumber(String data) {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            if (NUMBERS[i].equals(data)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int varintSize(int value) {
+        return value < 0x80 ? 1 : 2;
+    }
+
+    private static void writeVarint(ByteBuffer out, int value) {
+        if (value < 0x80) {
+            out.put((byte) value);
+        } else {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            out.put((byte) (value >> 7));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package sumogame.network.message;
+
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reader поверх CharBuffer, переиспользуется для каждой строки,
+ * чтобы не создавать String на каждое сообщение.
+ */
+public class CharBufferReader extends Reader {
+    private CharBuffer buffer;
+
+    public void reset(CharBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read(char[] target, int offset, int length) {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(target, offset, count);
+        return count;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() : -1;
+    }
+
+    @Override
+    public void close() {
+        // буфер принадлежит кодеку, закрывать нечего
+    }
+}
@@ -0,0 +1,82 @@
+package sumogame.network.message;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Текстовый формат: одно JSON сообщение на строку.
+ * Оставлен для отладки, сообщения можно читать глазами в tcpdump.
+ */
+public class JsonMessageCodec implements MessageCodec {
+    private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    private final CharBuffer lineChars = CharBuffer.allocate(MAX_LINE_LENGTH);
+    private final CharBufferReader lineReader = new CharBufferReader();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    @Override
+    public int encode(Message message, ByteBuffer out) {
+        byte[] json = message.toJson().getBytes(StandardCharsets.UTF_8);
+        if (out.remaining() < json.length + 1) {
+            return -1;
+        }
+        out.put(json);
+        out.put((byte) '\n');
+        return json.length + 1;
+    }
+
+    @Override
+    public Message decode(ByteBuffer in) {
+        while (true) {
+            int start = in.position();
+            int end = indexOfNewline(in, start);
+            if (end < 0) {
+                if (in.remaining() > MAX_LINE_LENGTH) {
+                    throw new IllegalArgumentException("Слишком длинное сообщение: " + in.remaining() + " байт");
+                }
+                return null;
+            }
+
+            int limit = in.limit();
+            in.limit(end);
+            Message message;
+            try {
+                message = end > start ? parse(in) : null;
+            } finally {
+                // строка пропускается даже если не разобралась
+                in.limit(limit);
+                in.position(end + 1);
+            }
+
+            if (message != null) {
+                return message;
+            }
+            // пустая строка - пропускаем и ищем следующую
+        }
+    }
+
+    private int indexOfNewline(ByteBuffer in, int from) {
+        for (int i = from; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Декодируем строку в переиспользуемый CharBuffer и отдаем Gson через Reader
+    private Message parse(ByteBuffer line) {
+        decoder.reset();
+        lineChars.clear();
+        decoder.decode(line, lineChars, true);
+        decoder.flush(lineChars);
+        lineChars.flip();
+        lineReader.reset(lineChars);
+        return Message.fromJson(lineReader);
+    }
+}
@@ -2,44 +2,80 @@ package sumogame.network.message;
 
 import com.google.gson.Gson;
 
+import java.io.Reader;
+
 public class Message {
+    // Gson потокобезопасен, один экземпляр на все сообщения
+    private static final Gson GSON = new Gson();
 
     public enum Type {
         PLAYER_JOIN,      // Подключение игрока + выбор персонажа
         PLAYER_MOVE,      // Движение игрока
         POWER_UP,         // Активация способности
-        ROUND_RESULT      // Результат раунда (сервер → клиент) такой немноого странный ти
+        ROUND_RESULT,     // Результат раунда (сервер → клиент) такой немноого странный ти
         //прежде всего для сверки, чтобы не было рассинхрона
+        ASSIGN_PLAYER,    // Выделенный сервер сообщает клиенту его номер игрока
+        STATE_SNAPSHOT,   // Снимок состояния от сервера в авторитетном режиме (байты SnapshotCodec)
+        SNAPSHOT_ACK,     // Клиент подтверждает тик полученного снимка, он станет базой для дельты
+        PING,             // Замер задержки: время отправителя в мкс
+        PONG,             // Ответ на PING: "время PING;время ответчика"
+        ROUND_START       // Сервер назначает момент старта матча: "момент;запас;момент в часах получателя (1/0)", мкс
     }
 
     private final Type type;
     private final String data;
     private final int playerId;
+    private final byte[] payload; // двоичные данные вместо строки (снимки состояния)
 
     public Type getType() { return type; }
     public String getData() { return data; }
     public int getPlayerId() { return playerId; }
+    public byte[] getPayload() { return payload; }
 
     public Message(Type type, String data, int playerId) {
         this.type = type;
         this.data = data;
         this.playerId = playerId;
+        this.payload = null;
+    }
+
+    public Message(Type type, byte[] payload, int playerId) {
+        this.type = type;
+        this.data = null;
+        this.playerId = playerId;
+        this.payload = payload;
+    }
+
+    // То же сообщение от имени другого игрока (сервер проставляет номер по подключению)
+    public Message withPlayerId(int playerId) {
+        return payload != null
+                ? new Message(type, payload, playerId)
+                : new Message(type, data, playerId);
     }
 
     public String toJson() {
-        return new Gson().toJson(this);
+        return GSON.toJson(this);
     }
 
     public static Message fromJson(String json) {
-        return new Gson().fromJson(json, Message.class);
+        return GSON.fromJson(json, Message.class);
+    }
+
+    // Разбор без промежуточной строки (NIO транспорт читает прямо из буфера)
+    public static Message fromJson(Reader reader) {
+        return GSON.fromJson(reader, Message.class);
     }
 
     public boolean isValid() {
-        return type != null && data != null && (playerId == 1 || playerId == 2);
+        return type != null && (data != null || payload != null) && (playerId == 1 || playerId == 2);
     }
 
     @Override
     public String toString() {
+        if (payload != null) {
+            return String.format("Message{type=%s, playerId=%d, payload=%d байт}",
+                    type, playerId, payload.length);
+        }
         return String.format("Message{type=%s, playerId=%d, data='%s'}",
                 type, playerId, data);
     }
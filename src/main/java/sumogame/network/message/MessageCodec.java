@@ -0,0 +1,26 @@
+package sumogame.network.message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Кодек сетевых сообщений: упаковка в байты и выделение сообщений из потока байт.
+ * Экземпляр держит свои рабочие буферы, поэтому используется одним потоком.
+ */
+public interface MessageCodec {
+
+    // Записывает сообщение вместе с разделителем/длиной.
+    // Возвращает число записанных байт или -1, если в буфере не хватает места (буфер не меняется)
+    int encode(Message message, ByteBuffer out);
+
+    // Выделяет одно сообщение из буфера (от position до limit).
+    // null - данных пока не хватает, position при этом не сдвигается
+    Message decode(ByteBuffer in);
+
+    static MessageCodec create(WireFormat format) {
+        return format == WireFormat.JSON ? new JsonMessageCodec() : new BinaryMessageCodec();
+    }
+
+    static MessageCodec create() {
+        return create(WireFormat.current());
+    }
+}
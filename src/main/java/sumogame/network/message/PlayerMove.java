@@ -0,0 +1,40 @@
+package sumogame.network.message;
+
+/**
+ * Данные PLAYER_MOVE: "направление;номер ввода".
+ * Номер ведет отправитель, сервер возвращает последний примененный в снимке
+ * (GameSnapshot.lastInputSequence) - по нему клиент сверяет предсказание.
+ * Движение без номера (старый формат) разбирается с номером -1.
+ */
+public final class PlayerMove {
+    public static final char SEPARATOR = ';';
+
+    private PlayerMove() {
+    }
+
+    public static Message create(String direction, int sequence, int playerId) {
+        return new Message(Message.Type.PLAYER_MOVE, data(direction, sequence), playerId);
+    }
+
+    public static String data(String direction, int sequence) {
+        return direction + SEPARATOR + sequence;
+    }
+
+    public static String direction(Message move) {
+        String data = move.getData();
+        int separator = data.indexOf(SEPARATOR);
+        return separator < 0 ? data : data.substring(0, separator);
+    }
+
+    // Номер ввода или -1, если его нет
+    public static int sequence(Message move) {
+        String data = move.getData();
+        int separator = data.indexOf(SEPARATOR);
+        if (separator < 0) return -1;
+        try {
+            return Integer.parseInt(data, separator + 1, data.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
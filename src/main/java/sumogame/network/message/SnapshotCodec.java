@@ -0,0 +1,256 @@
+package sumogame.network.message;
+
+import sumogame.model.ArenaType;
+import sumogame.model.GameConfig;
+import sumogame.model.GameSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Дельта-сжатие снимков состояния для STATE_SNAPSHOT.
+ *
+ * Снимок квантуется в массив целых полей: позиции - 16-битная фиксированная точка
+ * относительно границ арены, размер/скорость/сила - 8.8, таймеры - в мс и десятых секунды,
+ * плюс номер последнего обработанного ввода каждого игрока.
+ * Пакет: [тик varint][смещение базы varint, 0 - полный снимок][маска полей varint]
+ * и для каждого поля из маски zigzag varint разницы с базовым снимком.
+ * База - последний снимок, получение которого клиент подтвердил (SNAPSHOT_ACK).
+ *
+ * Один экземпляр на соединение. Сервер вызывает encode и acknowledge
+ * (подтверждение может прийти из потока сети), клиент - только decode.
+ */
+public class SnapshotCodec {
+    // Раскладка полей квантованного снимка
+    private static final int ROUND = 0;
+    private static final int SCORE1 = 1;
+    private static final int SCORE2 = 2;
+    private static final int ROUND_TIME = 3;
+    private static final int FLAGS = 4;
+    private static final int ARENA = 5;
+    private static final int PLAYER1 = 6;
+    private static final int PLAYER2 = 13;
+    // поля игрока от его начала
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int SIZE = 2;
+    private static final int SPEED = 3;
+    private static final int STRENGTH = 4;
+    private static final int TIMER = 5;
+    private static final int INPUT = 6;
+    private static final int FIELD_COUNT = 20;
+
+    private static final int FLAG_GAME_ACTIVE = 1;
+    private static final int FLAG_MATCH_FINISHED = 1 << 1;
+    private static final int FLAG_P1_AVAILABLE = 1 << 2;
+    private static final int FLAG_P1_ACTIVE = 1 << 3;
+    private static final int FLAG_P2_AVAILABLE = 1 << 4;
+    private static final int FLAG_P2_ACTIVE = 1 << 5;
+
+    // Диапазон позиций: арена плюс по половине ее размера с каждой стороны
+    private static final double X_MIN = -GameConfig.ARENA_WIDTH / 2.0;
+    private static final double X_RANGE = GameConfig.ARENA_WIDTH * 2.0;
+    private static final double Y_MIN = -GameConfig.ARENA_HEIGHT / 2.0;
+    private static final double Y_RANGE = GameConfig.ARENA_HEIGHT * 2.0;
+    private static final int POSITION_STEPS = 0xFFFF;
+    private static final double FIXED_8_8 = 256.0;
+
+    // Сколько последних снимков помнится как возможная база
+    private static final int HISTORY = 32;
+    private static final int[] EMPTY_BASELINE = new int[FIELD_COUNT];
+
+    private final int[][] history = new int[HISTORY][FIELD_COUNT];
+    private final long[] historyTicks = new long[HISTORY];
+    private final ByteBuffer buffer = ByteBuffer.allocate(10 + 10 + 4 + FIELD_COUNT * 5);
+    private volatile long ackedTick = -1;
+
+    public SnapshotCodec() {
+        Arrays.fill(historyTicks, -1);
+    }
+
+    // Сервер: пакет для клиента относительно последнего подтвержденного им снимка
+    public byte[] encode(GameSnapshot snapshot) {
+        long tick = snapshot.getTick();
+        long ack = ackedTick;
+        int slot = slot(tick);
+        // Подтвержденный снимок годится в базу, только если он моложе HISTORY тиков (иначе decode
+        // отвергнет смещение, а у клиента его ячейку мог занять более новый снимок) и лежит не
+        // в той ячейке, куда сейчас пишется текущий. Снимки идут не каждый тик, поэтому старая
+        // запись может пережить HISTORY тиков - одной проверки lookup для этого мало.
+        int[] baseline = ack >= 0 && ack < tick && tick - ack < HISTORY && slot(ack) != slot
+                ? lookup(ack) : null;
+        long offset = baseline != null ? tick - ack : 0;
+        if (baseline == null) {
+            baseline = EMPTY_BASELINE;
+        }
+
+        historyTicks[slot] = -1;
+        int[] fields = history[slot];
+        quantize(snapshot, fields);
+
+        int mask = 0;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (fields[i] != baseline[i]) {
+                mask |= 1 << i;
+            }
+        }
+
+        buffer.clear();
+        writeVarLong(buffer, tick);
+        writeVarLong(buffer, offset);
+        writeVarLong(buffer, mask);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if ((mask & (1 << i)) != 0) {
+                writeVarLong(buffer, zigzag(fields[i] - baseline[i]));
+            }
+        }
+        historyTicks[slot] = tick;
+
+        buffer.flip();
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return payload;
+    }
+
+    // Сервер: клиент подтвердил получение снимка
+    public void acknowledge(long tick) {
+        if (tick > ackedTick) {
+            ackedTick = tick;
+        }
+    }
+
+    // Клиент: восстанавливает полный снимок по пакету и запомненной базе
+    public GameSnapshot decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        long tick = readVarLong(in);
+        long offset = readVarLong(in);
+        if (offset >= HISTORY || offset > tick) {
+            throw new IllegalArgumentException("Некорректное смещение базового снимка: " + offset);
+        }
+
+        int[] baseline = EMPTY_BASELINE;
+        if (offset > 0) {
+            baseline = lookup(tick - offset);
+            if (baseline == null) {
+                throw new IllegalArgumentException("Нет базового снимка для тика " + (tick - offset));
+            }
+        }
+
+        int slot = slot(tick);
+        historyTicks[slot] = -1;
+        int[] fields = history[slot];
+        int mask = (int) readVarLong(in);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            fields[i] = (mask & (1 << i)) != 0
+                    ? baseline[i] + unzigzag(readVarLong(in))
+                    : baseline[i];
+        }
+        historyTicks[slot] = tick;
+
+        return dequantize(tick, fields);
+    }
+
+    private int[] lookup(long tick) {
+        int slot = slot(tick);
+        return historyTicks[slot] == tick ? history[slot] : null;
+    }
+
+    private static int slot(long tick) {
+        return (int) (tick % HISTORY);
+    }
+
+    private static void quantize(GameSnapshot snapshot, int[] fields) {
+        GameSnapshot.PlayerState p1 = snapshot.getPlayer1();
+        GameSnapshot.PlayerState p2 = snapshot.getPlayer2();
+
+        fields[ROUND] = snapshot.getRoundNumber();
+        fields[SCORE1] = snapshot.getPlayer1Score();
+        fields[SCORE2] = snapshot.getPlayer2Score();
+        fields[ROUND_TIME] = (int) Math.ceil(snapshot.getRoundTime() * 10);
+        fields[FLAGS] = (snapshot.isGameActive() ? FLAG_GAME_ACTIVE : 0)
+                | (snapshot.isMatchFinished() ? FLAG_MATCH_FINISHED : 0)
+                | (p1.isPowerUpAvailable() ? FLAG_P1_AVAILABLE : 0)
+                | (p1.isPowerUpActive() ? FLAG_P1_ACTIVE : 0)
+                | (p2.isPowerUpAvailable() ? FLAG_P2_AVAILABLE : 0)
+                | (p2.isPowerUpActive() ? FLAG_P2_ACTIVE : 0);
+        fields[ARENA] = snapshot.getArenaType().ordinal();
+        quantizePlayer(p1, fields, PLAYER1);
+        quantizePlayer(p2, fields, PLAYER2);
+    }
+
+    private static void quantizePlayer(GameSnapshot.PlayerState player, int[] fields, int base) {
+        fields[base + X] = quantizePosition(player.getX(), X_MIN, X_RANGE);
+        fields[base + Y] = quantizePosition(player.getY(), Y_MIN, Y_RANGE);
+        fields[base + SIZE] = (int) Math.round(player.getSize() * FIXED_8_8);
+        fields[base + SPEED] = (int) Math.round(player.getSpeed() * FIXED_8_8);
+        fields[base + STRENGTH] = (int) Math.round(player.getStrength() * FIXED_8_8);
+        fields[base + TIMER] = (int) Math.round(player.getPowerUpTimer() * 1000);
+        fields[base + INPUT] = player.getLastInputSequence();
+    }
+
+    private static GameSnapshot dequantize(long tick, int[] fields) {
+        int flags = fields[FLAGS];
+        ArenaType[] arenas = ArenaType.values();
+        if (fields[ARENA] < 0 || fields[ARENA] >= arenas.length) {
+            throw new IllegalArgumentException("Неизвестная арена: " + fields[ARENA]);
+        }
+        return new GameSnapshot(tick, fields[ROUND], fields[SCORE1], fields[SCORE2],
+                fields[ROUND_TIME] / 10.0,
+                (flags & FLAG_GAME_ACTIVE) != 0,
+                (flags & FLAG_MATCH_FINISHED) != 0,
+                arenas[fields[ARENA]],
+                dequantizePlayer(fields, PLAYER1, (flags & FLAG_P1_AVAILABLE) != 0, (flags & FLAG_P1_ACTIVE) != 0),
+                dequantizePlayer(fields, PLAYER2, (flags & FLAG_P2_AVAILABLE) != 0, (flags & FLAG_P2_ACTIVE) != 0));
+    }
+
+    private static GameSnapshot.PlayerState dequantizePlayer(int[] fields, int base,
+                                                             boolean powerUpAvailable, boolean powerUpActive) {
+        return new GameSnapshot.PlayerState(
+                dequantizePosition(fields[base + X], X_MIN, X_RANGE),
+                dequantizePosition(fields[base + Y], Y_MIN, Y_RANGE),
+                fields[base + SIZE] / FIXED_8_8,
+                fields[base + SPEED] / FIXED_8_8,
+                fields[base + STRENGTH] / FIXED_8_8,
+                fields[base + TIMER] / 1000.0,
+                powerUpAvailable,
+                powerUpActive,
+                fields[base + INPUT]);
+    }
+
+    private static int quantizePosition(double value, double min, double range) {
+        long steps = Math.round((value - min) / range * POSITION_STEPS);
+        return (int) Math.max(0, Math.min(POSITION_STEPS, steps));
+    }
+
+    private static double dequantizePosition(int steps, double min, double range) {
+        return min + steps * range / POSITION_STEPS;
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинный varint");
+    }
+}
@@ -0,0 +1,30 @@
+package sumogame.network.message;
+
+/**
+ * Формат передачи сообщений. Обе стороны должны использовать один и тот же.
+ * По умолчанию бинарный, JSON включается для отладки: -Dsumogame.wireFormat=json
+ */
+public enum WireFormat {
+    JSON,
+    BINARY;
+
+    private static volatile WireFormat current = parse(System.getProperty("sumogame.wireFormat"), BINARY);
+
+    public static WireFormat current() {
+        return current;
+    }
+
+    public static void setCurrent(WireFormat format) {
+        current = format;
+    }
+
+    public static WireFormat parse(String value, WireFormat defaultFormat) {
+        if (value == null) return defaultFormat;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный формат сообщений: " + value + ", используется " + defaultFormat);
+            return defaultFormat;
+        }
+    }
+}
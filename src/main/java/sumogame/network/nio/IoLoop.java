@@ -0,0 +1,180 @@
+package sumogame.network.nio;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Поток ввода-вывода со своим селектором, обслуживает много соединений.
+ * Буфер чтения и кодек общие для всех соединений этого потока.
+ */
+class IoLoop implements Runnable {
+    static final int MAX_MESSAGE_LENGTH = 16 * 1024;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final MessageCodec codec = MessageCodec.create();
+    private volatile boolean running = true;
+    private Thread thread;
+
+    IoLoop() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    void start(String name) {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Выполнить задачу в потоке селектора
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    // Кодек потока селектора, используется только из него
+    MessageCodec codec() {
+        return codec;
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    void register(NioClientConnection connection) {
+        execute(() -> {
+            try {
+                SocketChannel channel = connection.getChannel();
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connection.attach(key);
+                connection.writeOutbound(); // то, что успели отправить до регистрации
+            } catch (IOException e) {
+                System.err.println("Не удалось зарегистрировать соединение: " + e.getMessage());
+                connection.closeNow();
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                runTasks();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioClientConnection connection = (NioClientConnection) key.attachment();
+
+                    if (!key.isValid()) continue;
+                    if (key.isReadable()) {
+                        read(connection);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.writeOutbound();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                System.err.println("Ошибка потока ввода-вывода: " + e.getMessage());
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ((NioClientConnection) key.attachment()).closeNow();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // игнорирую ошибки закрытия
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void read(NioClientConnection connection) {
+        int count;
+        try {
+            readBuffer.clear();
+            count = connection.getChannel().read(readBuffer);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count < 0) {
+            connection.closeNow();
+            return;
+        }
+
+        readBuffer.flip();
+        ByteBuffer input = connection.getInputBuffer();
+        while (readBuffer.hasRemaining()) {
+            if (!input.hasRemaining()) {
+                System.err.println("Слишком длинное сообщение, соединение закрыто");
+                connection.closeNow();
+                return;
+            }
+            int chunk = Math.min(readBuffer.remaining(), input.remaining());
+            int limit = readBuffer.limit();
+            readBuffer.limit(readBuffer.position() + chunk);
+            input.put(readBuffer);
+            readBuffer.limit(limit);
+
+            input.flip();
+            boolean ok = decodeAll(connection, input);
+            input.compact();
+            if (!ok) {
+                connection.closeNow();
+                return;
+            }
+        }
+    }
+
+    // Выделяем из буфера соединения все целые сообщения.
+    // false - поток поврежден и соединение нужно закрыть
+    private boolean decodeAll(NioClientConnection connection, ByteBuffer input) {
+        while (true) {
+            int start = input.position();
+            Message message;
+            try {
+                message = codec.decode(input);
+            } catch (RuntimeException e) {
+                System.err.println("Некорректное сообщение: " + e.getMessage());
+                if (input.position() == start) {
+                    return false;
+                }
+                continue;
+            }
+            if (message == null) {
+                return true;
+            }
+            if (message.isValid()) {
+                connection.deliver(message);
+            }
+        }
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+}
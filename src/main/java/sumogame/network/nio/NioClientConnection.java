@@ -0,0 +1,199 @@
+package sumogame.network.nio;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageCodec;
+import sumogame.network.message.MessageHandler;
+import sumogame.network.service.ClientConnection;
+import sumogame.network.service.OutboundQueue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Неблокирующее подключение, все чтение и запись идут в потоке своего IoLoop.
+ * sendMessage можно вызывать из любого потока: сообщение кладется в очередь,
+ * а запись выполняет поток селектора. queueMessage только копит сообщения тика,
+ * flush отдает их потоку селектора, и он пишет все одним вызовом.
+ * Если сокет не принимает данные, сообщения ждут в ограниченной очереди (OutboundQueue),
+ * где устаревшие выбрасываются, а при переполнении соединение закрывается.
+ */
+public class NioClientConnection implements ClientConnection {
+    private static final int MAX_OUTBOUND_BYTES = 256 * 1024;
+
+    private final SocketChannel channel;
+    private final IoLoop loop;
+    private final ByteBuffer inputBuffer = ByteBuffer.allocate(IoLoop.MAX_MESSAGE_LENGTH);
+    private final OutboundQueue outbound;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private ByteBuffer outBuffer = ByteBuffer.allocate(4 * 1024);
+    private Message unsent; // уже взято из очереди, но не поместилось в буфер
+    private SelectionKey key;
+
+    // сообщения, пришедшие до того, как клиента посадили в комнату
+    private final List<Message> early = new ArrayList<>();
+    private MessageHandler messageHandler;
+    private volatile int playerId;
+    private volatile boolean connected = true;
+
+    NioClientConnection(SocketChannel channel, IoLoop loop, Set<Message.Type> stale) {
+        this.channel = channel;
+        this.loop = loop;
+        this.outbound = new OutboundQueue(stale);
+    }
+
+    @Override
+    public void start(int playerId, MessageHandler handler) {
+        this.playerId = playerId;
+        loop.execute(() -> {
+            this.messageHandler = handler;
+            for (Message message : early) {
+                handler.handleMessage(message);
+            }
+            early.clear();
+            if (!connected) {
+                // соединение закрылось, пока клиент ждал комнату
+                handler.onClientDisconnected(playerId);
+            }
+        });
+    }
+
+    // Вызывается из IoLoop
+    void deliver(Message message) {
+        if (messageHandler != null) {
+            messageHandler.handleMessage(message);
+        } else {
+            early.add(message);
+        }
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+        queueMessage(message);
+        flush();
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        // кодируем в потоке селектора его кодеком, здесь только очередь
+        if (connected && !outbound.offer(message)) {
+            System.err.println("Игрок " + playerId + " не успевает читать (" + outbound + "), соединение закрыто");
+            close();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (connected && !outbound.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::writeOutbound);
+        }
+    }
+
+    // Вызывается из IoLoop: кодируем очередь в буфер и пишем сколько примет сокет
+    void writeOutbound() {
+        flushScheduled.set(false);
+        if (!connected || key == null) return;
+
+        // кодируем, пока помещается в буфер; остальное ждет в очереди, где работает политика выброса
+        MessageCodec codec = loop.codec();
+        Message message = unsent != null ? unsent : outbound.poll();
+        while (message != null) {
+            if (codec.encode(message, outBuffer) < 0) {
+                if (outBuffer.position() > 0) break; // допишем, когда сокет примет начало
+                // буфер растет, только если в пустой не влезает даже одно сообщение
+                if (!growOutBuffer()) {
+                    System.err.println("Сообщение не помещается в буфер отправки: " + message);
+                    message = outbound.poll();
+                }
+                continue;
+            }
+            message = outbound.poll();
+        }
+        unsent = message;
+
+        try {
+            outBuffer.flip();
+            channel.write(outBuffer);
+            outBuffer.compact();
+        } catch (IOException e) {
+            closeNow();
+            return;
+        }
+
+        // недописанный остаток допишем, когда сокет станет доступен для записи
+        int interest = outBuffer.position() > 0 || unsent != null || !outbound.isEmpty()
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                : SelectionKey.OP_READ;
+        key.interestOps(interest);
+    }
+
+    private boolean growOutBuffer() {
+        if (outBuffer.capacity() >= MAX_OUTBOUND_BYTES) {
+            return false;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.min(outBuffer.capacity() * 2, MAX_OUTBOUND_BYTES));
+        outBuffer.flip();
+        bigger.put(outBuffer);
+        outBuffer = bigger;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (loop.inLoop()) {
+            closeNow();
+        } else {
+            loop.execute(this::closeNow);
+        }
+    }
+
+    // Вызывается из IoLoop
+    void closeNow() {
+        if (!connected) return;
+        connected = false;
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // игнорирую ошибки закрытия
+        }
+        if (messageHandler != null) {
+            messageHandler.onClientDisconnected(playerId);
+        }
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    ByteBuffer getInputBuffer() {
+        return inputBuffer;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return playerId;
+    }
+}
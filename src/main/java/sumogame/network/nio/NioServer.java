@@ -0,0 +1,92 @@
+package sumogame.network.nio;
+
+import sumogame.network.message.Message;
+import sumogame.network.service.ClientConnection;
+import sumogame.network.service.SocketOptions;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Сервер на java.nio: один поток принимает подключения,
+ * небольшое фиксированное число потоков с селекторами обслуживает все сокеты.
+ */
+public class NioServer {
+    private final int port;
+    private final IoLoop[] loops;
+    private final Set<Message.Type> stale;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private int nextLoop = 0;
+
+    // stale - что можно выбросить из очередей отправки клиентам, см. OutboundQueue.staleFromServer
+    public NioServer(int port, int ioThreads, Set<Message.Type> stale) throws IOException {
+        this.port = port;
+        this.stale = stale;
+        this.loops = new IoLoop[Math.max(1, ioThreads)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop();
+        }
+    }
+
+    // Принимает подключения в текущем потоке, пока сервер не остановлен
+    public void run(Consumer<ClientConnection> onAccepted) throws IOException {
+        running = true;
+        for (int i = 0; i < loops.length; i++) {
+            loops[i].start("Server-IO-" + (i + 1));
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        System.out.println("NIO транспорт: " + loops.length + " потоков ввода-вывода");
+
+        try {
+            while (running) {
+                SocketChannel channel = serverChannel.accept();
+                try {
+                    SocketOptions.current().apply(channel.socket());
+                } catch (IOException e) {
+                    // один сброшенный или неисправный сокет не должен останавливать прием
+                    System.err.println("Не удалось настроить подключение " + channel.socket().getRemoteSocketAddress()
+                            + ": " + e.getMessage());
+                    closeQuietly(channel);
+                    continue;
+                }
+
+                // соединения раскладываются по потокам по кругу
+                IoLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+
+                NioClientConnection connection = new NioClientConnection(channel, loop, stale);
+                loop.register(connection);
+                onAccepted.accept(connection);
+            }
+        } finally {
+            stop();
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // игнорирую ошибки закрытия
+        }
+    }
+
+    public void stop() {
+        running = false;
+        for (IoLoop loop : loops) {
+            loop.stop();
+        }
+        try {
+            if (serverChannel != null) serverChannel.close();
+        } catch (IOException e) {
+            // игнорирую ошибки закрытия
+        }
+    }
+}
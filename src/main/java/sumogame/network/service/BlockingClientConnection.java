@@ -0,0 +1,137 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageHandler;
+import sumogame.util.Threads;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Блокирующее подключение: отдельный поток на чтение из сокета.
+ * Чтение начинается сразу после приема, чтобы отключение игрока, который еще ждет пару,
+ * было видно по isConnected. Сообщения до start копятся и отдаются обработчику при start.
+ */
+public class BlockingClientConnection implements ClientConnection, Runnable {
+    private final Socket socket;
+    private volatile int playerId;
+    private final MessageStream stream;
+    private volatile MessageHandler messageHandler;
+    private volatile boolean connected;
+    // сообщения, пришедшие до того, как клиента посадили в комнату; под блокировкой this
+    private final List<Message> early = new ArrayList<>();
+
+    // stale - что можно выбросить из очереди отправки, см. OutboundQueue.staleFromServer
+    public BlockingClientConnection(Socket socket, Set<Message.Type> stale) throws IOException {
+        this.socket = socket;
+        SocketOptions.current().apply(socket);
+        this.stream = new MessageStream(socket, "Connection", stale);
+        this.connected = true;
+        Threads.start("Connection-" + socket.getPort(), this);
+    }
+
+    @Override
+    public void start(int playerId, MessageHandler handler) {
+        boolean disconnected;
+        synchronized (this) {
+            this.playerId = playerId;
+            for (Message message : early) {
+                handler.handleMessage(message);
+            }
+            early.clear();
+            this.messageHandler = handler;
+            disconnected = !connected;
+        }
+        if (disconnected) {
+            // соединение закрылось, пока клиент ждал комнату
+            handler.onClientDisconnected(playerId);
+        }
+    }
+
+    private void deliver(Message message) {
+        synchronized (this) {
+            if (messageHandler == null) {
+                early.add(message);
+                return;
+            }
+        }
+        messageHandler.handleMessage(message);
+    }
+
+    @Override
+    public void run() {
+        try {
+            Message message;
+            while (connected && (message = stream.read()) != null) {
+                if (message.isValid()) {
+                    deliver(message);
+                }
+            }
+        } catch (IOException e) {
+            if (connected) {
+                System.out.println("Соединение с игроком " + playerId + " разорвано: " + e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Некорректное сообщение от игрока " + playerId + ": " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+        if (connected) {
+            stream.write(message);
+        }
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        if (connected) {
+            stream.queue(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        stream.flush();
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return stream.getOutboundQueue();
+    }
+
+    @Override
+    public void close() {
+        MessageHandler handler;
+        synchronized (this) {
+            if (!connected) return;
+            connected = false;
+            stream.close();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // игнорирую ошибки закрытия
+            }
+            // без обработчика об отключении сообщит start
+            handler = messageHandler;
+        }
+        if (handler != null) {
+            handler.onClientDisconnected(playerId);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return playerId;
+    }
+}
@@ -0,0 +1,22 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageHandler;
+
+/**
+ * Клиентское подключение на выделенном сервере.
+ * Реализации: блокирующая (поток на сокет) и NIO (селектор на несколько сокетов).
+ */
+public interface ClientConnection {
+    // Начать доставку сообщений обработчику, playerId назначает сервер при создании комнаты
+    void start(int playerId, MessageHandler handler);
+    void sendMessage(Message message);
+    // Сообщения тика: копятся в очереди и уходят одной записью при flush
+    void queueMessage(Message message);
+    void flush();
+    // Счетчики отправки: сколько ушло и сколько устаревших выброшено
+    OutboundQueue getOutboundQueue();
+    void close();
+    boolean isConnected();
+    int getPlayerId();
+}
@@ -2,22 +2,22 @@ package sumogame.network.service;
 
 import sumogame.network.message.Message;
 import sumogame.network.message.MessageHandler;
+import sumogame.util.Threads;
 
-import java.io.*;
+import java.io.IOException;
 import java.net.Socket;
 import java.net.ConnectException;
 
 public class GameClient implements NetworkService, Runnable {
     private Socket socket;
-    private PrintWriter out;
-    private BufferedReader in;
+    private MessageStream stream;
     private Thread listenerThread;
     private volatile boolean connected;
     private final MessageHandler messageHandler;
     private final String serverAddress;
     private final int serverPort;
     private static final int CONNECT_TIMEOUT = 5000;
-    private final int playerId = 2;
+    private volatile int playerId = 2; // выделенный сервер может назначить 1
 
     public GameClient(MessageHandler messageHandler, String serverAddress, int serverPort) {
         this.messageHandler = messageHandler;
@@ -30,16 +30,14 @@ public class GameClient implements NetworkService, Runnable {
         try {
             System.out.println("Попытка подключения к " + serverAddress + ":" + serverPort);
             socket = new Socket();
+            SocketOptions.current().apply(socket);
             socket.connect(new java.net.InetSocketAddress(serverAddress, serverPort), CONNECT_TIMEOUT);
-            out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            stream = new MessageStream(socket, "Client", OutboundQueue.STALE_FROM_CLIENT);
             connected = true;
 
             System.out.println("Успешно подключено к серверу: " + serverAddress + ":" + serverPort);
 
-            listenerThread = new Thread(this, "Client-Listener");
-            listenerThread.setDaemon(true);
-            listenerThread.start();
+            listenerThread = Threads.start("Client-Listener", this);
 
             return true;
 
@@ -59,10 +57,9 @@ public class GameClient implements NetworkService, Runnable {
 
     private void listenForMessages() {
         try {
-            String messageJson;
-            while (connected && (messageJson = in.readLine()) != null) {
-                Message message = Message.fromJson(messageJson);
-                if (message != null && message.isValid() && messageHandler != null) {
+            Message message;
+            while (connected && (message = stream.read()) != null) {
+                if (message.isValid() && messageHandler != null) {
                     messageHandler.handleMessage(message);
                 }
             }
@@ -81,9 +78,23 @@ public class GameClient implements NetworkService, Runnable {
     }
 
     @Override
-    public synchronized void sendMessage(Message message) {
-        if (connected && out != null) {
-            out.println(message.toJson());
+    public void sendMessage(Message message) {
+        if (connected && stream != null) {
+            stream.write(message);
+        }
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        if (connected && stream != null) {
+            stream.queue(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (stream != null) {
+            stream.flush();
         }
     }
 
@@ -92,9 +103,10 @@ public class GameClient implements NetworkService, Runnable {
         if (!connected) return;
 
         connected = false;
+        if (stream != null) {
+            stream.close();
+        }
         try {
-            if (out != null) out.close();
-            if (in != null) in.close();
             if (socket != null && !socket.isClosed()) socket.close();
         } catch (IOException e) {
             // Игнорирую ошибки при закрытии
@@ -115,6 +127,10 @@ public class GameClient implements NetworkService, Runnable {
         return playerId;
     }
 
+    public void setPlayerId(int playerId) {
+        this.playerId = playerId;
+    }
+
     public String getServerAddress() {
         return serverAddress;
     }
@@ -1,9 +1,11 @@
 package sumogame.network.service;
 
 import sumogame.model.CharacterType;
+import sumogame.model.GameConfig;
 import sumogame.network.message.Message;
 import sumogame.network.message.MessageHandler;
-import java.io.*;
+import sumogame.util.Threads;
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 
@@ -11,8 +13,7 @@ public class GameServer implements NetworkService, Runnable {
 
     private ServerSocket serverSocket;
     private Socket clientSocket;
-    private PrintWriter out;
-    private BufferedReader in;
+    private MessageStream stream;
     private Thread listenerThread;
     private boolean running;
     private final MessageHandler messageHandler;
@@ -37,7 +38,7 @@ public class GameServer implements NetworkService, Runnable {
             running = true;
             System.out.println("Сервер запущен на порту " + port);
 
-            new Thread(this).start();
+            Threads.start("Server-Accept", this);
 
         } catch (IOException e) {
             System.err.println("Ошибка запуска сервера на порту " + port + ": " + e.getMessage());
@@ -49,8 +50,9 @@ public class GameServer implements NetworkService, Runnable {
         try {
             System.out.println("Ожидание подключения клиента на порту " + port + "...");
             clientSocket = serverSocket.accept();
-            out = new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream(), "UTF-8"), true);
-            in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), "UTF-8"));
+            SocketOptions.current().apply(clientSocket);
+            stream = new MessageStream(clientSocket, "Server",
+                    OutboundQueue.staleFromServer(GameConfig.SNAPSHOT_RATE > 0));
 
             System.out.println("Клиент подключен на порту " + port + "!");
 
@@ -69,8 +71,7 @@ public class GameServer implements NetworkService, Runnable {
                 System.out.println("Сервер отправил свой персонаж: " + serverCharacter.name());
             }
 
-            listenerThread = new Thread(this::listenForMessages);
-            listenerThread.start();
+            listenerThread = Threads.start("Server-Listener", this::listenForMessages);
 
         } catch (IOException e) {
             System.err.println("Ошибка подключения: " + e.getMessage());
@@ -80,10 +81,9 @@ public class GameServer implements NetworkService, Runnable {
 
     private void listenForMessages() {
         try {
-            String messageJson;
-            while (running && (messageJson = in.readLine()) != null) {
-                System.out.println("Сервер получил сообщение: " + messageJson);
-                Message message = Message.fromJson(messageJson);
+            Message message;
+            while (running && (message = stream.read()) != null) {
+                System.out.println("Сервер получил сообщение: " + message);
                 if (message.isValid() && messageHandler != null) {
                     messageHandler.handleMessage(message);
                 }
@@ -105,9 +105,23 @@ public class GameServer implements NetworkService, Runnable {
 
     @Override
     public void sendMessage(Message message) {
-        if (running && out != null && clientSocket != null && !clientSocket.isClosed()) {
-            out.println(message.toJson());
-            System.out.println("Сервер отправил сообщение: " + message.toJson());
+        if (isConnected() && stream != null) {
+            stream.write(message);
+            System.out.println("Сервер отправил сообщение: " + message);
+        }
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        if (isConnected() && stream != null) {
+            stream.queue(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (stream != null) {
+            stream.flush();
         }
     }
 
@@ -128,6 +142,9 @@ public class GameServer implements NetworkService, Runnable {
 
     private void stop() {
         running = false;
+        if (stream != null) {
+            stream.close();
+        }
         try {
             if (clientSocket != null) clientSocket.close();
             if (serverSocket != null) serverSocket.close();
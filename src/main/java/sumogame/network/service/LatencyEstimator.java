@@ -0,0 +1,135 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+
+/**
+ * Оценка связи со второй стороной по PING/PONG: сглаженный RTT, джиттер (как RTTVAR в TCP)
+ * и смещение часов - время той стороны минус наше.
+ * Смещение берется из ответа с наименьшим RTT среди последних: он меньше всего искажен очередями.
+ *
+ * Время везде в микросекундах System.nanoTime, у каждого процесса свое начало отсчета.
+ * onPong вызывается из потока сети, остальные методы - из любого потока.
+ *
+ * Момент старта (ROUND_START) переводит в часы получателя тот, кто его назначает:
+ * у сервера свои замеры до каждого клиента, и клиенту не нужно ждать своих.
+ */
+public class LatencyEstimator {
+    private static final int OFFSET_WINDOW = 8;
+    private static final char SEPARATOR = ';';
+
+    private final long[] recentRtt = new long[OFFSET_WINDOW];
+    private final long[] recentOffset = new long[OFFSET_WINDOW];
+    private int samples;
+    private double smoothedRtt;
+    private double rttVariation;
+    private long clockOffset;
+
+    public static long nowMicros() {
+        return System.nanoTime() / 1000;
+    }
+
+    public static Message createPing(int playerId) {
+        return new Message(Message.Type.PING, String.valueOf(nowMicros()), playerId);
+    }
+
+    // Ответ отправляется сразу из потока сети, чтобы не добавлять к RTT ожидание тика
+    public static Message createPong(Message ping, int playerId) {
+        return new Message(Message.Type.PONG, ping.getData() + SEPARATOR + nowMicros(), playerId);
+    }
+
+    // ROUND_START: момент в часах получателя, если есть замеры, иначе в наших (флаг 0)
+    public Message createRoundStart(long startAtMicros, long leadMicros, int playerId) {
+        boolean converted = hasSamples();
+        long remoteStart = converted ? toRemoteMicros(startAtMicros) : startAtMicros;
+        return new Message(Message.Type.ROUND_START,
+                String.valueOf(remoteStart) + SEPARATOR + leadMicros + SEPARATOR + (converted ? 1 : 0), playerId);
+    }
+
+    // Момент старта из ROUND_START в наших часах
+    public long roundStartLocalMicros(Message roundStart) {
+        String[] fields = roundStart.getData().split(String.valueOf(SEPARATOR));
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Некорректный ROUND_START: " + roundStart.getData());
+        }
+        long startAt = Long.parseLong(fields[0]);
+        long lead = Long.parseLong(fields[1]);
+        if ("1".equals(fields[2])) {
+            return startAt; // отправитель уже перевел в наши часы
+        }
+        // без замеров считаем, что сообщение дошло мгновенно
+        return hasSamples() ? toLocalMicros(startAt) : nowMicros() + lead;
+    }
+
+    public void onPong(Message pong) {
+        long received = nowMicros();
+        String data = pong.getData();
+        int separator = data.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Некорректный PONG: " + data);
+        }
+        onPong(Long.parseLong(data.substring(0, separator)), Long.parseLong(data.substring(separator + 1)), received);
+    }
+
+    public synchronized void onPong(long sentMicros, long remoteMicros, long receivedMicros) {
+        long rtt = receivedMicros - sentMicros;
+        if (rtt < 0) return;
+
+        // время той стороны в момент ответа против середины нашего интервала
+        long offset = remoteMicros - (sentMicros + receivedMicros) / 2;
+        if (samples == 0) {
+            smoothedRtt = rtt;
+            rttVariation = rtt / 2.0;
+        } else {
+            rttVariation = 0.75 * rttVariation + 0.25 * Math.abs(smoothedRtt - rtt);
+            smoothedRtt = 0.875 * smoothedRtt + 0.125 * rtt;
+        }
+
+        recentRtt[samples % OFFSET_WINDOW] = rtt;
+        recentOffset[samples % OFFSET_WINDOW] = offset;
+        samples++;
+
+        int best = 0;
+        for (int i = 1; i < Math.min(samples, OFFSET_WINDOW); i++) {
+            if (recentRtt[i] < recentRtt[best]) {
+                best = i;
+            }
+        }
+        clockOffset = recentOffset[best];
+    }
+
+    public synchronized boolean hasSamples() {
+        return samples > 0;
+    }
+
+    public synchronized int getSampleCount() {
+        return samples;
+    }
+
+    public synchronized double getRttMillis() {
+        return smoothedRtt / 1000.0;
+    }
+
+    public synchronized double getJitterMillis() {
+        return rttVariation / 1000.0;
+    }
+
+    public synchronized long getClockOffsetMicros() {
+        return clockOffset;
+    }
+
+    // Момент по часам той стороны в наших часах
+    public synchronized long toLocalMicros(long remoteMicros) {
+        return remoteMicros - clockOffset;
+    }
+
+    // Наш момент в часах той стороны
+    public synchronized long toRemoteMicros(long localMicros) {
+        return localMicros + clockOffset;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RTT %.1f мс, джиттер %.1f мс, смещение часов %.1f мс (%d замеров)",
+                getRttMillis(), getJitterMillis(), clockOffset / 1000.0, samples);
+    }
+}
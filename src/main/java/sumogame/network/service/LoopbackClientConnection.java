@@ -0,0 +1,137 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Подключение комнаты выделенного сервера к клиенту в том же процессе, поверх LoopbackNetworkService.
+ * Сервер видит обычный ClientConnection, клиент - обычный NetworkService: без сокетов и потоков
+ * комнату можно прогнать целиком, например в тестах.
+ * Сообщения тика копятся в OutboundQueue и при flush уходят собеседнику, как у сетевых подключений.
+ * Сообщения до start копятся и отдаются обработчику при start.
+ */
+public class LoopbackClientConnection implements ClientConnection {
+    private final LoopbackNetworkService endpoint;
+    private final OutboundQueue outbound;
+    private volatile int playerId;
+    private volatile MessageHandler messageHandler;
+    private volatile boolean connected = true;
+    // сообщения, пришедшие до того, как клиента посадили в комнату; под блокировкой this
+    private final List<Message> early = new ArrayList<>();
+
+    // Связывает новое подключение с клиентским сервисом (LoopbackNetworkService с isServer = false)
+    public static LoopbackClientConnection connect(LoopbackNetworkService client, Set<Message.Type> stale) {
+        LoopbackClientConnection connection = new LoopbackClientConnection(stale);
+        LoopbackNetworkService.connectPair(connection.endpoint, client);
+        return connection;
+    }
+
+    private LoopbackClientConnection(Set<Message.Type> stale) {
+        this.endpoint = new LoopbackNetworkService(new EndpointHandler(), true, 0);
+        this.outbound = new OutboundQueue(stale);
+    }
+
+    @Override
+    public void start(int playerId, MessageHandler handler) {
+        boolean disconnected;
+        synchronized (this) {
+            this.playerId = playerId;
+            for (Message message : early) {
+                handler.handleMessage(message);
+            }
+            early.clear();
+            this.messageHandler = handler;
+            disconnected = !connected;
+        }
+        if (disconnected) {
+            handler.onClientDisconnected(playerId);
+        }
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+        queueMessage(message);
+        flush();
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        if (connected && !outbound.offer(message)) {
+            System.err.println("Собеседник не успевает читать (" + outbound + "), соединение закрыто");
+            close();
+        }
+    }
+
+    // Обработчик клиента выполняется прямо здесь, в потоке вызывающего
+    @Override
+    public synchronized void flush() {
+        Message message;
+        while ((message = outbound.poll()) != null) {
+            endpoint.queueMessage(message);
+        }
+        endpoint.flush();
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    @Override
+    public void close() {
+        if (!connected) return;
+        outbound.clear();
+        endpoint.disconnect(); // клиент получит onClientDisconnected
+        disconnected();
+    }
+
+    // Обработчик узнает об отключении один раз: и при close, и когда отключился клиент
+    private void disconnected() {
+        MessageHandler handler;
+        synchronized (this) {
+            connected = false;
+            handler = messageHandler;
+            messageHandler = null;
+        }
+        if (handler != null) {
+            handler.onClientDisconnected(playerId);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    // Сторона сервера в паре LoopbackNetworkService
+    private class EndpointHandler implements MessageHandler {
+        @Override
+        public void handleMessage(Message message) {
+            MessageHandler handler;
+            synchronized (LoopbackClientConnection.this) {
+                handler = messageHandler;
+                if (handler == null) {
+                    if (connected) {
+                        early.add(message);
+                    }
+                    return;
+                }
+            }
+            handler.handleMessage(message);
+        }
+
+        @Override
+        public void onClientDisconnected(int playerId) {
+            disconnected();
+        }
+    }
+}
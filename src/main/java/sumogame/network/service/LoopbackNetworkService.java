@@ -0,0 +1,139 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageHandler;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Соединение двух NetworkManager внутри одного процесса: без сокетов, кодеков и потоков-слушателей.
+ * Сообщения передаются как есть через неблокирующие очереди: queueMessage кладет сообщение
+ * во входящую очередь собеседника, а flush отдает накопленное его обработчику прямо в текущем потоке
+ * (в локальной игре это FX поток обеих сторон).
+ * Хост регистрируется по номеру порта, клиент этого же процесса находит его в connect.
+ * Без UI пару можно связать напрямую через connectPair.
+ */
+public class LoopbackNetworkService implements NetworkService {
+    private static final Map<Integer, LoopbackNetworkService> HOSTS = new ConcurrentHashMap<>();
+
+    private final MessageHandler messageHandler;
+    private final boolean isServer;
+    private final int port;
+    private final Queue<Message> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private volatile LoopbackNetworkService peer;
+    private volatile boolean running;
+
+    public LoopbackNetworkService(MessageHandler messageHandler, boolean isServer, int port) {
+        this.messageHandler = messageHandler;
+        this.isServer = isServer;
+        this.port = port;
+    }
+
+    @Override
+    public void startServer() {
+        if (!isServer) {
+            throw new UnsupportedOperationException("Клиент не может запустить сервер");
+        }
+        if (HOSTS.putIfAbsent(port, this) != null) {
+            System.err.println("Локальный сервер на порту " + port + " уже запущен");
+            return;
+        }
+        running = true;
+        System.out.println("Локальный сервер ждет игрока, порт " + port);
+    }
+
+    @Override
+    public boolean connect(String address) {
+        if (isServer) return false;
+
+        LoopbackNetworkService host = HOSTS.remove(port);
+        if (host == null || !host.running) {
+            System.err.println("Локальный сервер на порту " + port + " не найден");
+            return false;
+        }
+        connectPair(host, this);
+        return true;
+    }
+
+    // Связывает хост и клиента; хост узнает о подключении, как от GameServer
+    public static void connectPair(LoopbackNetworkService host, LoopbackNetworkService client) {
+        host.peer = client;
+        client.peer = host;
+        host.running = true;
+        client.running = true;
+        if (host.messageHandler != null) {
+            host.messageHandler.onClientConnected(2);
+        }
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+        queueMessage(message);
+        flush();
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        LoopbackNetworkService to = peer;
+        if (running && to != null) {
+            to.inbox.add(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        LoopbackNetworkService to = peer;
+        if (to != null) {
+            to.deliver();
+        }
+    }
+
+    // Сообщения отдаются по порядку одним потоком за раз. Если обработчик сам отправляет ответ
+    // и доходит сюда же, новое сообщение заберет внешний цикл
+    private void deliver() {
+        while (!inbox.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                Message message;
+                while ((message = inbox.poll()) != null) {
+                    if (message.isValid() && messageHandler != null) {
+                        messageHandler.handleMessage(message);
+                    }
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        if (!running) return;
+        running = false;
+        HOSTS.remove(port, this);
+
+        LoopbackNetworkService other = peer;
+        peer = null;
+        if (other != null && other.running) {
+            other.running = false;
+            other.peer = null;
+            if (other.messageHandler != null) {
+                other.messageHandler.onClientDisconnected(2);
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return running && peer != null;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return isServer ? 1 : 2;
+    }
+}
@@ -0,0 +1,167 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageCodec;
+import sumogame.util.Threads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Чтение и запись сообщений через блокирующий сокет в текущем формате (WireFormat).
+ * Читает один поток-слушатель. Писать можно из любого потока: сообщения кладутся
+ * в очередь без блокировок, а свой поток записи кодирует все накопленное
+ * в один буфер и отдает сокету одним вызовом write.
+ * За тик сообщения складываются через queue, в конце тика flush будит поток записи.
+ * Очередь ограничена (OutboundQueue): если собеседник не читает, устаревшие сообщения
+ * выбрасываются, а при переполнении сокет закрывается - вызывающий поток не ждет никогда.
+ */
+public class MessageStream {
+    private static final int READ_BUFFER_SIZE = 32 * 1024;
+    private static final long CLOSE_TIMEOUT_MS = 200;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    // у чтения и записи свои экземпляры кодека: они работают в разных потоках
+    private final MessageCodec readCodec = MessageCodec.create();
+    private final MessageCodec writeCodec = MessageCodec.create();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(1024);
+    private final OutboundQueue outbound;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public MessageStream(Socket socket, String name, Set<Message.Type> stale) throws IOException {
+        this.socket = socket;
+        this.outbound = new OutboundQueue(stale);
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+        this.writer = Threads.start(name + "-Writer", this::writeLoop);
+    }
+
+    // Следующее сообщение или null, если соединение закрыто
+    public Message read() throws IOException {
+        while (true) {
+            readBuffer.flip();
+            int start = readBuffer.position();
+            Message message;
+            boolean skipped = false;
+            try {
+                message = readCodec.decode(readBuffer);
+            } catch (RuntimeException e) {
+                if (readBuffer.position() == start) {
+                    // кодек не смог даже выделить кадр - дальше поток не разобрать
+                    throw new IOException("Поток сообщений поврежден: " + e.getMessage());
+                }
+                System.err.println("Некорректное сообщение пропущено: " + e.getMessage());
+                message = null;
+                skipped = true;
+            } finally {
+                readBuffer.compact();
+            }
+            if (message != null) {
+                return message;
+            }
+            if (skipped) {
+                continue;
+            }
+
+            if (!readBuffer.hasRemaining()) {
+                throw new IOException("Сообщение не помещается в буфер чтения");
+            }
+            int count = in.read(readBuffer.array(), readBuffer.position(), readBuffer.remaining());
+            if (count < 0) {
+                return null;
+            }
+            readBuffer.position(readBuffer.position() + count);
+        }
+    }
+
+    // Положить сообщение в очередь, уйдет при следующем flush
+    public void queue(Message message) {
+        if (!closed && !outbound.offer(message)) {
+            System.err.println("Собеседник не успевает читать (" + outbound + "), соединение закрыто");
+            closeSocket();
+        }
+    }
+
+    public void flush() {
+        LockSupport.unpark(writer);
+    }
+
+    // Отправить сразу, вместе со всем, что уже лежит в очереди
+    public void write(Message message) {
+        queue(message);
+        flush();
+    }
+
+    // Дописывает очередь и останавливает поток записи. Сокет закрывает владелец после этого
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        if (Thread.currentThread() != writer) {
+            try {
+                writer.join(CLOSE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Поток записи: ждет flush, затем одна запись в сокет на всю очередь
+    private void writeLoop() {
+        try {
+            while (true) {
+                if (!outbound.isEmpty()) {
+                    writeQueued();
+                } else if (closed) {
+                    break;
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Ошибка отправки сообщений: " + e.getMessage());
+                closeSocket();
+            }
+        }
+    }
+
+    // Поток чтения увидит закрытый сокет и отключит собеседника как обычно
+    private void closeSocket() {
+        closed = true;
+        outbound.clear();
+        LockSupport.unpark(writer);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // игнорирую ошибки закрытия
+        }
+    }
+
+    public OutboundQueue getOutboundQueue() {
+        return outbound;
+    }
+
+    private void writeQueued() throws IOException {
+        writeBuffer.clear();
+        Message message;
+        while ((message = outbound.poll()) != null) {
+            while (writeCodec.encode(message, writeBuffer) < 0) {
+                ByteBuffer bigger = ByteBuffer.allocate(writeBuffer.capacity() * 2);
+                writeBuffer.flip();
+                bigger.put(writeBuffer);
+                writeBuffer = bigger;
+            }
+        }
+        out.write(writeBuffer.array(), 0, writeBuffer.position());
+        out.flush();
+    }
+}
@@ -14,6 +14,9 @@ public interface NetworkService {
     boolean connect(String address);
     void startServer();
     void sendMessage(Message message);
+    // Сообщения тика: копятся в очереди и уходят одной записью при flush
+    void queueMessage(Message message);
+    void flush();
     void disconnect();
     boolean isConnected();
     int getPlayerId(); // 1 или 2 соответственно
@@ -0,0 +1,176 @@
+package sumogame.network.service;
+
+import sumogame.network.message.Message;
+
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченная очередь исходящих сообщений одного подключения.
+ * Класть может любой поток, забирает один поток записи.
+ *
+ * Если собеседник не успевает читать и очередь заполнилась:
+ * - устаревающие сообщения (снимки, движения, замеры связи) выбрасываются, начиная с самых старых -
+ *   следующее такое сообщение все равно их заменит;
+ * - надежные (ROUND_RESULT, PLAYER_JOIN, ROUND_START...) не выбрасываются никогда;
+ * - если места нет даже после выброса устаревших или собеседник давно ничего не забирает,
+ *   offer возвращает false и подключение нужно закрыть.
+ * Так медленный клиент не задерживает общий тик сервера и не съедает память.
+ */
+public class OutboundQueue {
+    // Что можно выбросить при отправке с сервера (выделенного или хоста) в авторитетном режиме
+    public static final Set<Message.Type> STALE_FROM_SERVER = EnumSet.of(
+            Message.Type.STATE_SNAPSHOT, Message.Type.PLAYER_MOVE, Message.Type.PING, Message.Type.PONG);
+    // Без снимков сервер пересылает движения противника, и клиент двигает его только по ним -
+    // такие движения выбрасывать нельзя
+    public static final Set<Message.Type> STALE_FROM_RELAY = EnumSet.of(
+            Message.Type.STATE_SNAPSHOT, Message.Type.PING, Message.Type.PONG);
+    // С клиента движения не выбрасываются: сервер двигает игрока только по ним
+    public static final Set<Message.Type> STALE_FROM_CLIENT = EnumSet.of(
+            Message.Type.SNAPSHOT_ACK, Message.Type.PING, Message.Type.PONG);
+
+    private static final AtomicLong TOTAL_DROPPED = new AtomicLong();
+    private static final AtomicLong TOTAL_OVERFLOWS = new AtomicLong();
+    private static volatile int defaultCapacity = Integer.getInteger("sumogame.sendQueue", 256);
+
+    private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final Set<Message.Type> stale;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // выброшено подряд, пока поток записи ничего не забирал
+    private final AtomicInteger droppedSinceProgress = new AtomicInteger();
+    private volatile boolean overflowed;
+
+    public OutboundQueue(Set<Message.Type> stale) {
+        this(defaultCapacity, stale);
+    }
+
+    public OutboundQueue(int capacity, Set<Message.Type> stale) {
+        this.capacity = Math.max(1, capacity);
+        this.stale = stale;
+    }
+
+    // Набор для сервера: authoritative - рассылаются снимки (snapshot-rate > 0)
+    public static Set<Message.Type> staleFromServer(boolean authoritative) {
+        return authoritative ? STALE_FROM_SERVER : STALE_FROM_RELAY;
+    }
+
+    public static void setDefaultCapacity(int capacity) {
+        defaultCapacity = capacity;
+    }
+
+    public static int getDefaultCapacity() {
+        return defaultCapacity;
+    }
+
+    // false - очередь переполнена, подключение пора закрыть
+    public boolean offer(Message message) {
+        if (overflowed) return false;
+
+        while (size.get() >= capacity) {
+            if (!dropOldestStale()) {
+                if (stale.contains(message.getType())) {
+                    // все место занято надежными сообщениями, выбрасываем само новое
+                    countDropped();
+                    return !overflowed;
+                }
+                return overflow();
+            }
+        }
+
+        queue.add(message);
+        size.incrementAndGet();
+        return !overflowed;
+    }
+
+    // Вызывается потоком записи
+    public Message poll() {
+        Message message = queue.poll();
+        if (message != null) {
+            size.decrementAndGet();
+            sent.incrementAndGet();
+            droppedSinceProgress.set(0);
+        }
+        return message;
+    }
+
+    public Message peek() {
+        return queue.peek();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public void clear() {
+        queue.clear();
+        size.set(0);
+    }
+
+    private boolean dropOldestStale() {
+        for (Message queued : queue) {
+            if (stale.contains(queued.getType()) && queue.remove(queued)) {
+                size.decrementAndGet();
+                countDropped();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void countDropped() {
+        dropped.incrementAndGet();
+        TOTAL_DROPPED.incrementAndGet();
+        // собеседник не забрал ни одного сообщения за целую очередь выброшенных - считаем его потерянным
+        if (droppedSinceProgress.incrementAndGet() > capacity) {
+            overflow();
+        }
+    }
+
+    private boolean overflow() {
+        if (!overflowed) {
+            overflowed = true;
+            TOTAL_OVERFLOWS.incrementAndGet();
+        }
+        return false;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    // Счетчики по всем подключениям процесса
+    public static long getTotalDropped() {
+        return TOTAL_DROPPED.get();
+    }
+
+    public static long getTotalOverflows() {
+        return TOTAL_OVERFLOWS.get();
+    }
+
+    @Override
+    public String toString() {
+        return "отправлено " + sent.get() + ", выброшено устаревших " + dropped.get()
+                + ", в очереди " + size.get() + "/" + capacity
+                + (overflowed ? ", переполнение" : "");
+    }
+}
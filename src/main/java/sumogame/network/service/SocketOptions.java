@@ -0,0 +1,77 @@
+package sumogame.network.service;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * Настройки TCP-сокетов для всех подключений игры.
+ * TCP_NODELAY включен по умолчанию: сообщения и так собираются в пачку за тик,
+ * ждать алгоритм Нейгла незачем. Размеры буферов 0 - системные.
+ * Клиент: -Dsumogame.tcpNoDelay=false -Dsumogame.sendBuffer=65536 -Dsumogame.receiveBuffer=65536
+ */
+public final class SocketOptions {
+    private static volatile SocketOptions current = new SocketOptions(
+            !"false".equalsIgnoreCase(System.getProperty("sumogame.tcpNoDelay")),
+            Integer.getInteger("sumogame.sendBuffer", 0),
+            Integer.getInteger("sumogame.receiveBuffer", 0));
+
+    private final boolean tcpNoDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+
+    public SocketOptions(boolean tcpNoDelay, int sendBufferSize, int receiveBufferSize) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    public static SocketOptions current() {
+        return current;
+    }
+
+    public static void setCurrent(SocketOptions options) {
+        current = options;
+    }
+
+    public SocketOptions withTcpNoDelay(boolean enabled) {
+        return new SocketOptions(enabled, sendBufferSize, receiveBufferSize);
+    }
+
+    public SocketOptions withSendBufferSize(int size) {
+        return new SocketOptions(tcpNoDelay, size, receiveBufferSize);
+    }
+
+    public SocketOptions withReceiveBufferSize(int size) {
+        return new SocketOptions(tcpNoDelay, sendBufferSize, size);
+    }
+
+    // Применяется к сокету сразу после подключения или accept
+    public void apply(Socket socket) throws SocketException {
+        socket.setTcpNoDelay(tcpNoDelay);
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    @Override
+    public String toString() {
+        return "TCP_NODELAY " + (tcpNoDelay ? "вкл" : "выкл")
+                + ", буфер отправки " + (sendBufferSize > 0 ? sendBufferSize : "системный")
+                + ", буфер приема " + (receiveBufferSize > 0 ? receiveBufferSize : "системный");
+    }
+}
@@ -0,0 +1,32 @@
+package sumogame.network.service;
+
+/**
+ * Транспорт игры вдвоем (хост и клиент). Обе стороны должны использовать один и тот же.
+ * По умолчанию TCP, UDP включается через -Dsumogame.transport=udp.
+ * LOOPBACK - обе стороны в одном процессе (игра вдвоем за одной клавиатурой)
+ */
+public enum Transport {
+    TCP,
+    UDP,
+    LOOPBACK;
+
+    private static volatile Transport current = parse(System.getProperty("sumogame.transport"), TCP);
+
+    public static Transport current() {
+        return current;
+    }
+
+    public static void setCurrent(Transport transport) {
+        current = transport;
+    }
+
+    public static Transport parse(String value, Transport defaultTransport) {
+        if (value == null) return defaultTransport;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный транспорт: " + value + ", используется " + defaultTransport);
+            return defaultTransport;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package sumogame.network.udp;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Имитация плохой сети для исходящих датаграмм: потери, задержка и джиттер
+ * (из-за джиттера пакеты еще и приходят не по порядку).
+ * Передается в UdpNetworkService, чтобы проверять каналы на loopback.
+ * Из командной строки: -Dsumogame.udp.loss=0.1 -Dsumogame.udp.latencyMs=50 -Dsumogame.udp.jitterMs=20
+ */
+public class LinkSimulator {
+    private final double lossRate;
+    private final int latencyMs;
+    private final int jitterMs;
+    private final Random random;
+    private final ScheduledExecutorService delayer;
+    private long dropped;
+
+    public LinkSimulator(double lossRate, int latencyMs, int jitterMs, long seed) {
+        this.lossRate = lossRate;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.random = new Random(seed);
+        this.delayer = latencyMs > 0 || jitterMs > 0
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Udp-Link-Simulator");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    // null, если имитация не настроена
+    public static LinkSimulator fromSystemProperties() {
+        double loss = Double.parseDouble(System.getProperty("sumogame.udp.loss", "0"));
+        int latency = Integer.getInteger("sumogame.udp.latencyMs", 0);
+        int jitter = Integer.getInteger("sumogame.udp.jitterMs", 0);
+        if (loss <= 0 && latency <= 0 && jitter <= 0) {
+            return null;
+        }
+        System.out.println("Имитация сети: потери " + loss + ", задержка " + latency + " мс, джиттер " + jitter + " мс");
+        return new LinkSimulator(loss, latency, jitter, System.nanoTime());
+    }
+
+    void send(DatagramSocket socket, byte[] data, int length, SocketAddress to) throws IOException {
+        int delay;
+        synchronized (random) {
+            if (random.nextDouble() < lossRate) {
+                dropped++;
+                return;
+            }
+            delay = latencyMs + (jitterMs > 0 ? random.nextInt(2 * jitterMs + 1) - jitterMs : 0);
+        }
+
+        if (delay <= 0 || delayer == null) {
+            socket.send(new DatagramPacket(data, length, to));
+            return;
+        }
+        // буфер отправителя переиспользуется, поэтому откладываем копию
+        byte[] copy = Arrays.copyOf(data, length);
+        delayer.schedule(() -> {
+            try {
+                socket.send(new DatagramPacket(copy, copy.length, to));
+            } catch (IOException e) {
+                // сокет уже закрыт - пакет просто теряется
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public long getDroppedCount() {
+        synchronized (random) {
+            return dropped;
+        }
+    }
+
+    public void shutdown() {
+        if (delayer != null) {
+            delayer.shutdownNow();
+        }
+    }
+}
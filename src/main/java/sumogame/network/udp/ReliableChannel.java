@@ -0,0 +1,179 @@
+package sumogame.network.udp;
+
+import sumogame.network.message.Message;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Надежный упорядоченный канал поверх датаграмм.
+ * Отправка: каждое сообщение получает номер и лежит в окне, пока его не подтвердят;
+ * без подтверждения переотправляется через 2 RTT (не чаще MIN_RESEND).
+ * Прием: сообщения отдаются строго по номерам, пришедшие раньше времени ждут пропущенные.
+ * Подтверждение в каждом пакете: следующий ожидаемый номер (все до него получены),
+ * старший полученный и битовое поле на 32 номера перед ним - чтобы не переотправлять дошедшее вразнобой.
+ * Номера int: за матч до переполнения не дойти.
+ */
+final class ReliableChannel {
+    static final int ACK_BYTES = 12;
+    private static final int MAX_UNACKED = 1024;
+    private static final long MIN_RESEND_NANOS = 30_000_000L;
+    private static final long INITIAL_RTT_NANOS = 100_000_000L;
+
+    static final class Pending {
+        final int sequence;
+        final Message message;
+        private long firstSentAt;
+        private long lastSentAt;
+        private int sendCount;
+
+        Pending(int sequence, Message message) {
+            this.sequence = sequence;
+            this.message = message;
+        }
+    }
+
+    // отправка
+    private final ArrayDeque<Pending> unacked = new ArrayDeque<>();
+    private int nextSendSequence;
+    private double smoothedRttNanos = INITIAL_RTT_NANOS;
+    private long resent;
+
+    // прием
+    private final Map<Integer, Message> outOfOrder = new HashMap<>();
+    private int nextExpected;
+    private int highestReceived = -1;
+    private int receivedBits;
+    private boolean ackOwed;
+
+    // false - окно переполнено, собеседник давно ничего не подтверждает
+    synchronized boolean enqueue(Message message) {
+        if (unacked.size() >= MAX_UNACKED) {
+            return false;
+        }
+        unacked.add(new Pending(nextSendSequence++, message));
+        return true;
+    }
+
+    // Сообщения, которые пора отправить впервые или повторно, по порядку номеров
+    synchronized void collectDue(long now, List<Pending> out) {
+        long resendAfter = resendNanos();
+        for (Pending pending : unacked) {
+            if (pending.sendCount == 0 || now - pending.lastSentAt >= resendAfter) {
+                out.add(pending);
+            }
+        }
+    }
+
+    synchronized boolean hasDue(long now) {
+        long resendAfter = resendNanos();
+        for (Pending pending : unacked) {
+            if (pending.sendCount == 0 || now - pending.lastSentAt >= resendAfter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void markSent(Pending pending, long now) {
+        if (pending.sendCount == 0) {
+            pending.firstSentAt = now;
+        } else {
+            resent++;
+        }
+        pending.lastSentAt = now;
+        pending.sendCount++;
+    }
+
+    synchronized void onAck(int nextExpectedByPeer, int highest, int bits, long now) {
+        Iterator<Pending> iterator = unacked.iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (pending.sendCount > 0 && isAcked(pending.sequence, nextExpectedByPeer, highest, bits)) {
+                if (pending.sendCount == 1) {
+                    // по переотправленным RTT не меряем: непонятно, на какую копию ответ
+                    smoothedRttNanos = 0.875 * smoothedRttNanos + 0.125 * (now - pending.firstSentAt);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isAcked(int sequence, int nextExpectedByPeer, int highest, int bits) {
+        if (sequence < nextExpectedByPeer || sequence == highest) {
+            return true;
+        }
+        int distance = highest - sequence;
+        return distance >= 1 && distance <= 32 && (bits >>> (distance - 1) & 1) != 0;
+    }
+
+    // Прием: в deliver добавляются сообщения, которые можно отдать по порядку
+    synchronized void receive(int sequence, Message message, List<Message> deliver) {
+        ackOwed = true;
+        markReceived(sequence);
+        if (sequence < nextExpected || sequence >= nextExpected + MAX_UNACKED) {
+            return; // повтор уже полученного
+        }
+
+        outOfOrder.put(sequence, message);
+        Message next;
+        while ((next = outOfOrder.remove(nextExpected)) != null) {
+            deliver.add(next);
+            nextExpected++;
+        }
+    }
+
+    private void markReceived(int sequence) {
+        if (highestReceived < 0) {
+            highestReceived = sequence;
+            return;
+        }
+        if (sequence > highestReceived) {
+            int shift = sequence - highestReceived;
+            receivedBits = shift >= 32 ? 0 : receivedBits << shift;
+            if (shift <= 32) {
+                receivedBits |= 1 << (shift - 1); // бывший старший
+            }
+            highestReceived = sequence;
+        } else if (sequence < highestReceived) {
+            int distance = highestReceived - sequence;
+            if (distance <= 32) {
+                receivedBits |= 1 << (distance - 1);
+            }
+        }
+    }
+
+    synchronized void writeAcks(ByteBuffer out) {
+        out.putInt(nextExpected);
+        out.putInt(highestReceived);
+        out.putInt(receivedBits);
+    }
+
+    synchronized void ackSent() {
+        ackOwed = false;
+    }
+
+    synchronized boolean isAckOwed() {
+        return ackOwed;
+    }
+
+    private long resendNanos() {
+        return Math.max(MIN_RESEND_NANOS, (long) (2 * smoothedRttNanos));
+    }
+
+    synchronized int getUnackedCount() {
+        return unacked.size();
+    }
+
+    synchronized long getResentCount() {
+        return resent;
+    }
+
+    synchronized double getRttMillis() {
+        return smoothedRttNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,450 @@
+package sumogame.network.udp;
+
+import sumogame.model.GameConfig;
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageCodec;
+import sumogame.network.message.MessageHandler;
+import sumogame.network.service.NetworkService;
+import sumogame.network.service.OutboundQueue;
+import sumogame.util.Threads;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Сетевой сервис поверх UDP для игры вдвоем - замена пары GameServer/GameClient.
+ * В одних датаграммах идут два логических канала:
+ * - последовательный ненадежный: снимки, движения с хоста, PING/PONG, подтверждения снимков.
+ *   Потерянное не переотправляется, пришедшее позже более нового того же типа выбрасывается
+ *   (у каждого типа своя нумерация, чтобы свежий снимок не отменял задержавшийся PONG);
+ * - надежный упорядоченный (ReliableChannel): PLAYER_JOIN, POWER_UP, ROUND_RESULT, ROUND_START
+ *   и ввод клиента - хост двигает игрока только по его PLAYER_MOVE.
+ *   Без снимков (SNAPSHOT_RATE=0) движения хоста тоже надежные: клиент двигает противника только по ним.
+ * Ненадежные - те же типы, что можно выбрасывать из очереди отправки (OutboundQueue),
+ * поэтому потерянный снимок больше не задерживает ROUND_RESULT, как в TCP.
+ *
+ * Датаграмма: [магия 2][тип 1]; у DATA дальше подтверждения надежного канала (12 байт),
+ * [число сообщений 1] и сообщения [канал 1][номер 4][длина 2][сообщение в формате MessageCodec].
+ * Один поток принимает пакеты и раз в SERVICE_INTERVAL_MS переотправляет неподтвержденное,
+ * отправляет подтверждения и keepalive. Сообщения тика уходят одним пакетом при flush.
+ */
+public class UdpNetworkService implements NetworkService {
+    private static final short MAGIC = 0x5347;
+    private static final byte CONNECT = 1;
+    private static final byte ACCEPT = 2;
+    private static final byte DATA = 3;
+    private static final byte DISCONNECT = 4;
+    private static final byte UNRELIABLE = 0;
+    private static final byte RELIABLE = 1;
+
+    private static final int MAX_PACKET = 1200; // с запасом меньше MTU
+    private static final int ENTRY_HEADER = 1 + 4 + 2;
+    private static final int MAX_ENTRIES = 255;
+    private static final int SERVICE_INTERVAL_MS = 10;
+    private static final long KEEPALIVE_NANOS = 100_000_000L;
+    private static final long TIMEOUT_NANOS = 5_000_000_000L;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int CONNECT_RETRY_MS = 100;
+    private static final int DISCONNECT_COPIES = 3;
+    private static final int TYPE_COUNT = Message.Type.values().length;
+
+    private final MessageHandler messageHandler;
+    private final boolean isServer;
+    private final String serverAddress;
+    private final int port;
+    private final LinkSimulator simulator;
+    private final Set<Message.Type> unreliableTypes;
+    private final ReliableChannel reliable = new ReliableChannel();
+    private final Queue<Message> unreliableQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // сборка пакетов, под замком flush
+    private final MessageCodec writeCodec = MessageCodec.create();
+    private final ByteBuffer packet = ByteBuffer.allocate(MAX_PACKET);
+    private final ByteBuffer encoded = ByteBuffer.allocate(MAX_PACKET);
+    private final List<ReliableChannel.Pending> due = new ArrayList<>();
+    private int countPosition;
+    private int entryCount;
+    private final int[] nextUnreliableSequence = new int[TYPE_COUNT]; // по ordinal типа
+
+    // прием, только поток приема
+    private final MessageCodec readCodec = MessageCodec.create();
+    private final List<Message> delivered = new ArrayList<>();
+    private final List<Message> parsed = new ArrayList<>();
+    private final byte[] parsedChannels = new byte[MAX_ENTRIES];
+    private final int[] parsedSequences = new int[MAX_ENTRIES];
+    private final int[] newestUnreliable = new int[TYPE_COUNT]; // по ordinal типа
+
+    private DatagramSocket socket;
+    private volatile SocketAddress peer;
+    private volatile boolean running;
+    private volatile long lastSendNanos;
+    private volatile long lastReceiveNanos;
+
+    public UdpNetworkService(MessageHandler messageHandler, boolean isServer, String serverAddress, int port,
+                             LinkSimulator simulator) {
+        this.messageHandler = messageHandler;
+        this.isServer = isServer;
+        this.serverAddress = serverAddress;
+        this.port = port;
+        this.simulator = simulator;
+        this.unreliableTypes = isServer
+                ? OutboundQueue.staleFromServer(GameConfig.SNAPSHOT_RATE > 0)
+                : OutboundQueue.STALE_FROM_CLIENT;
+        Arrays.fill(newestUnreliable, -1);
+    }
+
+    @Override
+    public void startServer() {
+        if (!isServer) {
+            throw new UnsupportedOperationException("Клиент не может запустить сервер");
+        }
+        try {
+            socket = new DatagramSocket(port);
+            running = true;
+            System.out.println("UDP сервер запущен на порту " + port);
+            Threads.start("Udp-Server", this::receiveLoop);
+        } catch (IOException e) {
+            System.err.println("Ошибка запуска UDP сервера на порту " + port + ": " + e.getMessage());
+        }
+    }
+
+    // Клиент: шлет CONNECT, пока сервер не ответит ACCEPT
+    @Override
+    public boolean connect(String address) {
+        if (isServer) return false;
+
+        InetSocketAddress target = new InetSocketAddress(serverAddress, port);
+        try {
+            socket = new DatagramSocket();
+            socket.setSoTimeout(CONNECT_RETRY_MS);
+            byte[] buffer = new byte[MAX_PACKET];
+            DatagramPacket received = new DatagramPacket(buffer, buffer.length);
+            long deadline = System.nanoTime() + CONNECT_TIMEOUT_MS * 1_000_000L;
+
+            while (System.nanoTime() < deadline) {
+                sendControl(CONNECT, target);
+                try {
+                    received.setLength(buffer.length);
+                    socket.receive(received);
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                ByteBuffer in = ByteBuffer.wrap(buffer, 0, received.getLength());
+                if (target.equals(received.getSocketAddress()) && in.remaining() >= 3
+                        && in.getShort() == MAGIC && in.get() == ACCEPT) {
+                    peer = target;
+                    running = true;
+                    lastReceiveNanos = System.nanoTime();
+                    System.out.println("Подключено по UDP к " + serverAddress + ":" + port);
+                    Threads.start("Udp-Client", this::receiveLoop);
+                    return true;
+                }
+            }
+            System.err.println("UDP сервер " + serverAddress + ":" + port + " не ответил");
+        } catch (IOException e) {
+            System.err.println("Ошибка подключения по UDP к " + serverAddress + ":" + port + ": " + e.getMessage());
+        }
+        if (socket != null) {
+            socket.close();
+        }
+        return false;
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[MAX_PACKET];
+        DatagramPacket received = new DatagramPacket(buffer, buffer.length);
+        try {
+            socket.setSoTimeout(SERVICE_INTERVAL_MS);
+            while (running) {
+                try {
+                    received.setLength(buffer.length);
+                    socket.receive(received);
+                    handlePacket(ByteBuffer.wrap(buffer, 0, received.getLength()), received.getSocketAddress());
+                } catch (SocketTimeoutException e) {
+                    // время обслужить канал
+                }
+                service(System.nanoTime());
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Ошибка приема UDP: " + e.getMessage());
+            }
+        } finally {
+            close(false);
+        }
+    }
+
+    private void handlePacket(ByteBuffer in, SocketAddress from) {
+        if (in.remaining() < 3 || in.getShort() != MAGIC) return;
+        byte kind = in.get();
+
+        if (kind == CONNECT && isServer) {
+            acceptClient(from);
+            return;
+        }
+        if (!from.equals(peer)) return;
+        lastReceiveNanos = System.nanoTime();
+
+        if (kind == DISCONNECT) {
+            System.out.println("Собеседник закрыл UDP соединение");
+            running = false;
+        } else if (kind == DATA) {
+            try {
+                handleData(in);
+            } catch (RuntimeException e) {
+                System.err.println("Некорректный UDP пакет пропущен: " + e.getMessage());
+            }
+        }
+    }
+
+    private void acceptClient(SocketAddress from) {
+        boolean first = peer == null;
+        if (!first && !from.equals(peer)) return; // второй клиент не нужен
+        if (first) {
+            peer = from;
+            lastReceiveNanos = System.nanoTime();
+        }
+        // ACCEPT мог потеряться, поэтому отвечаем на каждый CONNECT
+        sendControl(ACCEPT, from);
+        if (first) {
+            System.out.println("UDP клиент подключен: " + from);
+            if (messageHandler != null) {
+                messageHandler.onClientConnected(2);
+            }
+        }
+    }
+
+    // Пакет сначала разбирается целиком: испорченный отбрасывается, не тронув подтверждения
+    // и состояние каналов, и ничего из него не остается в delivered до следующего пакета
+    private void handleData(ByteBuffer in) {
+        int nextExpectedByPeer = in.getInt();
+        int highest = in.getInt();
+        int bits = in.getInt();
+
+        parsed.clear();
+        int count = in.get() & 0xFF;
+        for (int i = 0; i < count; i++) {
+            parsedChannels[i] = in.get();
+            parsedSequences[i] = in.getInt();
+            int length = in.getShort() & 0xFFFF;
+            ByteBuffer body = in.slice();
+            body.limit(length);
+            in.position(in.position() + length);
+
+            Message message = readCodec.decode(body);
+            if (message == null) {
+                throw new IllegalArgumentException("Неполное сообщение в пакете");
+            }
+            parsed.add(message);
+        }
+
+        reliable.onAck(nextExpectedByPeer, highest, bits, System.nanoTime());
+        try {
+            for (int i = 0; i < count; i++) {
+                Message message = parsed.get(i);
+                int sequence = parsedSequences[i];
+                if (parsedChannels[i] == UNRELIABLE) {
+                    // более новое сообщение этого типа уже отдали - это устарело
+                    int type = message.getType().ordinal();
+                    if (sequence > newestUnreliable[type]) {
+                        newestUnreliable[type] = sequence;
+                        delivered.add(message);
+                    }
+                } else {
+                    reliable.receive(sequence, message, delivered);
+                }
+            }
+
+            for (Message message : delivered) {
+                if (message.isValid() && messageHandler != null) {
+                    messageHandler.handleMessage(message);
+                }
+            }
+        } finally {
+            delivered.clear();
+            parsed.clear();
+        }
+    }
+
+    // Вызывается потоком приема: переотправка, подтверждения, keepalive и таймаут
+    private void service(long now) {
+        if (peer == null || !running) return;
+
+        if (now - lastReceiveNanos > TIMEOUT_NANOS) {
+            System.out.println("Собеседник не отвечает по UDP, соединение закрыто");
+            running = false;
+            return;
+        }
+        if (reliable.isAckOwed() || reliable.hasDue(now) || now - lastSendNanos > KEEPALIVE_NANOS) {
+            sendPacket(now, true);
+        }
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+        queueMessage(message);
+        flush();
+    }
+
+    @Override
+    public void queueMessage(Message message) {
+        if (!isConnected()) return;
+
+        if (unreliableTypes.contains(message.getType())) {
+            unreliableQueue.add(message);
+        } else if (!reliable.enqueue(message)) {
+            System.err.println("Собеседник не подтверждает сообщения, UDP соединение закрыто");
+            disconnect();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (isConnected()) {
+            sendPacket(System.nanoTime(), false);
+        }
+    }
+
+    // Все накопленное одним пакетом (или несколькими, если не влезает).
+    // Пустой пакет уходит только ради подтверждений и keepalive
+    private synchronized void sendPacket(long now, boolean evenIfEmpty) {
+        SocketAddress to = peer;
+        if (to == null) return;
+
+        beginPacket();
+        Message message;
+        while ((message = unreliableQueue.poll()) != null) {
+            appendEntry(UNRELIABLE, nextUnreliableSequence[message.getType().ordinal()]++, message, to, now);
+        }
+        due.clear();
+        reliable.collectDue(now, due);
+        for (ReliableChannel.Pending pending : due) {
+            if (appendEntry(RELIABLE, pending.sequence, pending.message, to, now)) {
+                reliable.markSent(pending, now);
+            }
+        }
+        if (entryCount > 0 || evenIfEmpty || reliable.isAckOwed()) {
+            finishPacket(to, now);
+        }
+    }
+
+    private void beginPacket() {
+        packet.clear();
+        packet.putShort(MAGIC);
+        packet.put(DATA);
+        reliable.writeAcks(packet);
+        countPosition = packet.position();
+        packet.put((byte) 0);
+        entryCount = 0;
+    }
+
+    private boolean appendEntry(byte channel, int sequence, Message message, SocketAddress to, long now) {
+        encoded.clear();
+        int length = writeCodec.encode(message, encoded);
+        if (length < 0 || length > MAX_PACKET - countPosition - 1 - ENTRY_HEADER) {
+            System.err.println("Сообщение не помещается в UDP пакет: " + message);
+            return false;
+        }
+        if (packet.remaining() < ENTRY_HEADER + length || entryCount == MAX_ENTRIES) {
+            finishPacket(to, now);
+            beginPacket();
+        }
+        packet.put(channel);
+        packet.putInt(sequence);
+        packet.putShort((short) length);
+        packet.put(encoded.array(), 0, length);
+        entryCount++;
+        return true;
+    }
+
+    private void finishPacket(SocketAddress to, long now) {
+        packet.put(countPosition, (byte) entryCount);
+        send(packet.array(), packet.position(), to);
+        lastSendNanos = now;
+        reliable.ackSent();
+    }
+
+    private void sendControl(byte kind, SocketAddress to) {
+        byte[] control = controlPacket(kind);
+        send(control, control.length, to);
+    }
+
+    private static byte[] controlPacket(byte kind) {
+        return ByteBuffer.allocate(3).putShort(MAGIC).put(kind).array();
+    }
+
+    private void send(byte[] data, int length, SocketAddress to) {
+        try {
+            if (simulator != null) {
+                simulator.send(socket, data, length, to);
+            } else {
+                socket.send(new DatagramPacket(data, length, to));
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Ошибка отправки UDP: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        close(true);
+    }
+
+    private void close(boolean notifyPeer) {
+        if (!closed.compareAndSet(false, true)) return;
+
+        SocketAddress to = peer;
+        if (notifyPeer && to != null && running) {
+            // подтверждения не ждем, поэтому несколько копий; если все потеряются, сработает таймаут.
+            // Мимо имитации сети: сокет сейчас закроется, и отложенные копии не ушли бы
+            byte[] disconnect = controlPacket(DISCONNECT);
+            for (int i = 0; i < DISCONNECT_COPIES; i++) {
+                try {
+                    socket.send(new DatagramPacket(disconnect, disconnect.length, to));
+                } catch (IOException e) {
+                    break;
+                }
+            }
+        }
+        running = false;
+        if (socket != null) {
+            socket.close();
+        }
+        if (simulator != null) {
+            simulator.shutdown();
+        }
+        if (to != null) {
+            System.out.println("UDP соединение закрыто: переотправлено " + reliable.getResentCount()
+                    + ", не подтверждено " + reliable.getUnackedCount()
+                    + String.format(", RTT надежного канала %.1f мс", reliable.getRttMillis()));
+            if (messageHandler != null) {
+                messageHandler.onClientDisconnected(2);
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return running && peer != null;
+    }
+
+    @Override
+    public int getPlayerId() {
+        return isServer ? 1 : 2;
+    }
+}
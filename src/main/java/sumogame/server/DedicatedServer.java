@@ -0,0 +1,213 @@
+package sumogame.server;
+
+import sumogame.model.GameConfig;
+import sumogame.network.message.Message;
+import sumogame.network.message.WireFormat;
+import sumogame.network.nio.NioServer;
+import sumogame.network.service.BlockingClientConnection;
+import sumogame.network.service.OutboundQueue;
+import sumogame.network.service.SocketOptions;
+import sumogame.util.Threads;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+
+/**
+ * Выделенный сервер без JavaFX.
+ * Постоянно принимает клиентов, менеджер комнат раскладывает их по парам,
+ * и каждый матч считается своим движком. В одном процессе идет много матчей сразу.
+ *
+ * Транспорт: blocking - поток на каждое подключение, nio - селекторы на --io-threads потоках.
+ * С --virtual-threads (JDK 21+) потоки блокирующего транспорта виртуальные.
+ * --wire-format json|binary - формат сообщений, должен совпадать с клиентами.
+ * --snapshot-rate - частота снимков состояния авторитетного режима, 0 - старый режим с пересылкой ввода.
+ * --tcp-nodelay on|off, --send-buffer и --receive-buffer (байт) - настройки сокетов клиентов.
+ * --send-queue - сколько сообщений ждет отправки медленному клиенту, дальше выбрасываются устаревшие.
+ *
+ * Запуск: java -jar demo-1.0-SNAPSHOT-server.jar --port 5555 --tick-rate 60 --transport nio
+ */
+public class DedicatedServer {
+    private static final int DEFAULT_PORT = 5555;
+    private static final int DEFAULT_MAX_ROOMS = 5000;
+
+    private final int port;
+    private final int tickRate;
+    private final RoomManager roomManager;
+    private final boolean useNio;
+    private final int ioThreads;
+    // движения клиентам можно выбрасывать, только если они не единственный источник движения противника
+    private final Set<Message.Type> staleOutbound;
+    private volatile boolean running;
+    private NioServer nioServer;
+    private volatile ServerSocket serverSocket;
+
+    public DedicatedServer(int port, int tickRate, int snapshotRate, int tickThreads, int maxRooms,
+                           boolean useNio, int ioThreads) {
+        this.port = port;
+        this.tickRate = tickRate;
+        this.useNio = useNio;
+        this.ioThreads = ioThreads;
+        this.staleOutbound = OutboundQueue.staleFromServer(snapshotRate > 0);
+        this.roomManager = new RoomManager(tickRate, snapshotRate, tickThreads, maxRooms);
+    }
+
+    public void run() throws IOException {
+        running = true;
+        System.out.println("Выделенный сервер запущен на порту " + port + ", " + tickRate + " тиков/с");
+        try {
+            if (useNio) {
+                nioServer = new NioServer(port, ioThreads, staleOutbound);
+                nioServer.run(roomManager::accept);
+            } else {
+                runBlocking();
+            }
+        } finally {
+            roomManager.shutdown();
+        }
+    }
+
+    private void runBlocking() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            this.serverSocket = serverSocket;
+            // stop() мог прийти до того, как сокет попал в поле
+            while (running) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    // stop() закрыл сокет - штатная остановка
+                    if (!running) {
+                        break;
+                    }
+                    throw e;
+                }
+                BlockingClientConnection connection;
+                try {
+                    connection = new BlockingClientConnection(socket, staleOutbound);
+                } catch (IOException e) {
+                    // один сброшенный или неисправный сокет не должен останавливать прием
+                    System.err.println("Не удалось настроить подключение " + socket.getRemoteSocketAddress()
+                            + ": " + e.getMessage());
+                    closeQuietly(socket);
+                    continue;
+                }
+                roomManager.accept(connection);
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // игнорирую ошибки закрытия
+        }
+    }
+
+    public void stop() {
+        running = false;
+        if (nioServer != null) {
+            nioServer.stop();
+        }
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // игнорирую ошибки закрытия
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        long startTime = System.nanoTime();
+        int port = DEFAULT_PORT;
+        int tickRate = GameConfig.TICK_RATE;
+        int snapshotRate = GameConfig.SNAPSHOT_RATE;
+        int tickThreads = Runtime.getRuntime().availableProcessors();
+        int maxRooms = DEFAULT_MAX_ROOMS;
+        boolean useNio = false;
+        int ioThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--tick-rate":
+                    tickRate = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--snapshot-rate":
+                    snapshotRate = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--tick-threads":
+                    tickThreads = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--max-rooms":
+                    maxRooms = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--transport":
+                    useNio = "nio".equals(requireValue(args, ++i));
+                    break;
+                case "--io-threads":
+                    ioThreads = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--virtual-threads":
+                    Threads.setVirtualThreads(true);
+                    break;
+                case "--wire-format":
+                    WireFormat.setCurrent(WireFormat.parse(requireValue(args, ++i), WireFormat.current()));
+                    break;
+                case "--tcp-nodelay":
+                    SocketOptions.setCurrent(SocketOptions.current().withTcpNoDelay(!"off".equals(requireValue(args, ++i))));
+                    break;
+                case "--send-buffer":
+                    SocketOptions.setCurrent(SocketOptions.current().withSendBufferSize(Integer.parseInt(requireValue(args, ++i))));
+                    break;
+                case "--send-queue":
+                    OutboundQueue.setDefaultCapacity(Integer.parseInt(requireValue(args, ++i)));
+                    break;
+                case "--receive-buffer":
+                    SocketOptions.setCurrent(SocketOptions.current().withReceiveBufferSize(Integer.parseInt(requireValue(args, ++i))));
+                    break;
+                default:
+                    System.err.println("Неизвестный параметр: " + args[i]);
+                    System.err.println("Использование: --port <порт> --tick-rate <тиков/с> [--snapshot-rate <снимков/с>]"
+                            + " [--tick-threads <потоков>] [--max-rooms <комнат>]"
+                            + " [--transport blocking|nio] [--io-threads <потоков>] [--virtual-threads]"
+                            + " [--wire-format json|binary] [--tcp-nodelay on|off]"
+                            + " [--send-buffer <байт>] [--receive-buffer <байт>] [--send-queue <сообщений>]");
+                    System.exit(2);
+            }
+        }
+
+        DedicatedServer server = new DedicatedServer(port, tickRate, snapshotRate, tickThreads, maxRooms, useNio, ioThreads);
+        if (Threads.isVirtualThreads()) {
+            System.out.println("Потоки подключений: виртуальные");
+        }
+        System.out.println("Формат сообщений: " + WireFormat.current());
+        System.out.println("Сокеты: " + SocketOptions.current()
+                + ", очередь отправки " + OutboundQueue.getDefaultCapacity() + " сообщений");
+        System.out.println(snapshotRate > 0
+                ? "Авторитетный режим: " + snapshotRate + " снимков/с"
+                : "Авторитетный режим выключен, ввод пересылается клиентам");
+        System.out.println("Старт за " + (System.nanoTime() - startTime) / 1_000_000 + " мс");
+        try {
+            server.run();
+        } catch (IOException e) {
+            System.err.println("Ошибка сервера на порту " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            System.err.println("Не указано значение для " + args[index - 1]);
+            System.exit(2);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,320 @@
+package sumogame.server;
+
+import sumogame.engine.GameEngine;
+import sumogame.engine.GameEventListener;
+import sumogame.model.CharacterType;
+import sumogame.model.GameSnapshot;
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageHandler;
+import sumogame.network.message.PlayerMove;
+import sumogame.network.message.SnapshotCodec;
+import sumogame.model.GameConfig;
+import sumogame.network.service.ClientConnection;
+import sumogame.network.service.LatencyEstimator;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Комната выделенного сервера: один матч между двумя клиентами.
+ * Движок крутится в потоке планировщика, сообщения клиентов складываются
+ * в очередь и применяются в начале тика, поэтому движок трогает только один поток.
+ *
+ * В авторитетном режиме (snapshotRate > 0) движение игроков никому не пересылается:
+ * комната считает единственную симуляцию и рассылает снимки состояния.
+ * Все, что комната отправляет за тик, копится в очередях подключений и уходит одной записью в конце тика.
+ */
+public class MatchRoom implements GameEventListener {
+    private static final int LATENCY_WARMUP_SAMPLES = 3;
+    private static final int MAX_LATENCY_WAIT_SECONDS = 2;
+
+    private final int roomId;
+    private final ClientConnection[] connections = new ClientConnection[2];
+    private final CharacterType[] characters = new CharacterType[2];
+    // у каждого клиента своя база для дельты снимков
+    private final SnapshotCodec[] snapshotCodecs = {new SnapshotCodec(), new SnapshotCodec()};
+    private final LatencyEstimator[] latency = {new LatencyEstimator(), new LatencyEstimator()};
+    private final GameEngine gameEngine;
+    private final int tickRate;
+    private final int snapshotInterval; // тиков между снимками, 0 - снимки не рассылаются
+    private final Queue<Message> incoming = new ConcurrentLinkedQueue<>();
+    private final Runnable onFinished;
+
+    private ScheduledFuture<?> tickTask;
+    private Executor closer;
+    private boolean matchStarted = false;
+    private long matchStartMicros; // назначенный момент старта, 0 - не назначен или уже начали
+    private boolean startPending; // оба игрока готовы, ждем замеров связи, чтобы назначить старт
+    private int ticksWaitingForLatency;
+    private volatile boolean finished = false;
+
+    public MatchRoom(int roomId, ClientConnection player1, ClientConnection player2,
+                     int tickRate, int snapshotRate, Runnable onFinished) {
+        this.roomId = roomId;
+        this.connections[0] = player1;
+        this.connections[1] = player2;
+        this.tickRate = tickRate;
+        this.snapshotInterval = snapshotRate > 0 ? GameSnapshot.intervalTicks(tickRate, snapshotRate) : 0;
+        this.onFinished = onFinished;
+        // у выделенного сервера нет локального игрока, он только считает результаты
+        this.gameEngine = new GameEngine(0, null, true, this, tickRate);
+    }
+
+    // closer закрывает подключения после матча: закрытие блокирующего подключения ждет поток записи,
+    // и медленный клиент не должен держать поток тика
+    public void start(ScheduledExecutorService scheduler, Executor closer) {
+        this.closer = closer;
+        for (int i = 0; i < connections.length; i++) {
+            ClientConnection connection = connections[i];
+            int playerId = i + 1;
+            connection.start(playerId, new RoomMessageHandler(playerId));
+            connection.sendMessage(new Message(Message.Type.ASSIGN_PLAYER, String.valueOf(playerId), playerId));
+        }
+
+        long periodNanos = 1_000_000_000L / tickRate;
+        tickTask = scheduler.scheduleAtFixedRate(this::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        System.out.println("Комната " + roomId + " открыта, " + tickRate + " тиков/с");
+    }
+
+    // Один тик симуляции, выполняется в потоке планировщика.
+    // Под той же блокировкой, что отметка в finish: закрытие из потока ввода-вывода дождется конца тика,
+    // и тик не будет кодировать и отправлять в уже закрытые подключения
+    private synchronized void tick() {
+        if (finished) return;
+
+        try {
+            if (matchStartMicros != 0 && LatencyEstimator.nowMicros() >= matchStartMicros) {
+                matchStartMicros = 0;
+                gameEngine.startGame();
+                System.out.println("Комната " + roomId + ": матч начался");
+            }
+
+            gameEngine.beginTick();
+
+            Message message;
+            while ((message = incoming.poll()) != null) {
+                applyMessage(message);
+            }
+
+            gameEngine.update(gameEngine.getTickDuration());
+
+            if (gameEngine.getTickNumber() % pingIntervalTicks() == 0) {
+                broadcast(LatencyEstimator.createPing(1));
+            }
+            if (startPending) {
+                scheduleMatchStartWhenMeasured();
+            }
+
+            if (matchStarted && snapshotInterval > 0 && gameEngine.getTickNumber() % snapshotInterval == 0) {
+                sendSnapshots();
+            }
+
+            for (ClientConnection connection : connections) {
+                connection.flush();
+            }
+        } catch (RuntimeException e) {
+            // исключение отменило бы задачу планировщика, поэтому закрываем комнату явно
+            System.err.println("Ошибка в комнате " + roomId + ": " + e.getMessage());
+            finish();
+        }
+    }
+
+    private void applyMessage(Message message) {
+        int playerId = message.getPlayerId();
+
+        switch (message.getType()) {
+            case PLAYER_JOIN:
+                handlePlayerJoin(playerId, message);
+                break;
+
+            case PLAYER_MOVE:
+                gameEngine.processPlayerInput(playerId, PlayerMove.direction(message), PlayerMove.sequence(message));
+                if (snapshotInterval == 0) {
+                    sendToOpponent(playerId, message);
+                }
+                break;
+
+            case POWER_UP:
+                gameEngine.processPowerUp(playerId);
+                if (snapshotInterval == 0) {
+                    sendToOpponent(playerId, message);
+                }
+                break;
+
+            case SNAPSHOT_ACK:
+                acknowledgeSnapshot(playerId, message.getData());
+                break;
+
+            default:
+                System.out.println("Комната " + roomId + ": сообщение не обработано: " + message);
+        }
+    }
+
+    private void handlePlayerJoin(int playerId, Message message) {
+        CharacterType character;
+        try {
+            character = CharacterType.valueOf(message.getData());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный тип персонажа: " + message.getData());
+            return;
+        }
+
+        characters[playerId - 1] = character;
+        gameEngine.setPlayerCharacter(playerId, character);
+
+        if (characters[0] != null && characters[1] != null && !matchStarted) {
+            matchStarted = true;
+            // каждый клиент узнает персонажа противника и начинает игру
+            sendToOpponent(1, new Message(Message.Type.PLAYER_JOIN, characters[0].name(), 1));
+            sendToOpponent(2, new Message(Message.Type.PLAYER_JOIN, characters[1].name(), 2));
+            startPending = true;
+        }
+    }
+
+    // Пока замеров мало, пингуем чаще
+    private int pingIntervalTicks() {
+        int samples = Math.min(latency[0].getSampleCount(), latency[1].getSampleCount());
+        return samples < LATENCY_WARMUP_SAMPLES ? Math.max(1, tickRate / 10) : tickRate;
+    }
+
+    // Старт в один момент у всех: каждому клиенту момент переводится в его часы по замерам PING/PONG.
+    // Если замеров долго нет, назначаем без них
+    private void scheduleMatchStartWhenMeasured() {
+        boolean measured = latency[0].getSampleCount() >= LATENCY_WARMUP_SAMPLES
+                && latency[1].getSampleCount() >= LATENCY_WARMUP_SAMPLES;
+        if (!measured && ++ticksWaitingForLatency < tickRate * MAX_LATENCY_WAIT_SECONDS) return;
+        startPending = false;
+
+        long lead = GameConfig.MATCH_START_LEAD_MS * 1000L
+                + (long) (2 * Math.max(latency[0].getRttMillis(), latency[1].getRttMillis()) * 1000);
+        matchStartMicros = LatencyEstimator.nowMicros() + lead;
+        for (int i = 0; i < connections.length; i++) {
+            connections[i].queueMessage(latency[i].createRoundStart(matchStartMicros, lead, 1));
+        }
+        System.out.println("Комната " + roomId + ": старт матча через " + lead / 1000 + " мс");
+        logConnections();
+    }
+
+    private void sendSnapshots() {
+        GameSnapshot snapshot = gameEngine.captureSnapshot();
+        for (int i = 0; i < connections.length; i++) {
+            byte[] payload = snapshotCodecs[i].encode(snapshot);
+            connections[i].queueMessage(new Message(Message.Type.STATE_SNAPSHOT, payload, 1));
+        }
+    }
+
+    private void acknowledgeSnapshot(int playerId, String tick) {
+        try {
+            snapshotCodecs[playerId - 1].acknowledge(Long.parseLong(tick));
+        } catch (NumberFormatException e) {
+            System.err.println("Некорректное подтверждение снимка: " + tick);
+        }
+    }
+
+    private void sendToOpponent(int playerId, Message message) {
+        connections[playerId == 1 ? 1 : 0].queueMessage(message);
+    }
+
+    private void broadcast(Message message) {
+        for (ClientConnection connection : connections) {
+            connection.queueMessage(message);
+        }
+    }
+
+    // События движка
+
+    @Override
+    public void onRoundResult(int winnerId) {
+        broadcast(new Message(Message.Type.ROUND_RESULT, String.valueOf(winnerId), 1));
+        logConnections();
+    }
+
+    // Для разбора жалоб на лаги: связь и очередь отправки каждого игрока
+    private void logConnections() {
+        for (int i = 0; i < latency.length; i++) {
+            System.out.println("Комната " + roomId + ", игрок " + (i + 1) + ": " + latency[i]
+                    + "; " + connections[i].getOutboundQueue());
+        }
+    }
+
+    @Override
+    public void onMatchFinished() {
+        System.out.println("Комната " + roomId + ": матч завершен");
+        finish();
+    }
+
+    // Под блокировкой только отметка и отмена тика, подключения закрываются в closer
+    public void finish() {
+        synchronized (this) {
+            if (finished) return;
+            finished = true;
+
+            if (tickTask != null) {
+                tickTask.cancel(false);
+            }
+        }
+        if (closer != null) {
+            closer.execute(this::closeConnections);
+        } else {
+            closeConnections();
+        }
+    }
+
+    private void closeConnections() {
+        for (ClientConnection connection : connections) {
+            connection.flush(); // результат последнего раунда уходит до закрытия
+            connection.close();
+        }
+        System.out.println("Комната " + roomId + " закрыта");
+
+        if (onFinished != null) {
+            onFinished.run();
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    // Обработчик сообщений одного клиента, номер игрока берется из подключения
+    private class RoomMessageHandler implements MessageHandler {
+        private final int playerId;
+
+        RoomMessageHandler(int playerId) {
+            this.playerId = playerId;
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            // замер задержки не ждет тика, иначе в RTT попадет ожидание очереди
+            switch (message.getType()) {
+                case PING:
+                    connections[playerId - 1].sendMessage(LatencyEstimator.createPong(message, playerId));
+                    return;
+                case PONG:
+                    try {
+                        latency[playerId - 1].onPong(message);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    return;
+                default:
+                    incoming.add(message.withPlayerId(playerId));
+            }
+        }
+
+        @Override
+        public void onClientDisconnected(int playerId) {
+            System.out.println("Комната " + roomId + ": игрок " + playerId + " отключился");
+            finish();
+        }
+    }
+}
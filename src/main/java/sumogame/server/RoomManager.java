@@ -0,0 +1,115 @@
+package sumogame.server;
+
+import sumogame.network.service.ClientConnection;
+import sumogame.network.service.OutboundQueue;
+import sumogame.util.Threads;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Менеджер комнат: раскладывает входящих клиентов по парам
+ * и держит все активные матчи процесса.
+ * Тики всех комнат выполняет один общий пул потоков, закрытые комнаты сразу удаляются.
+ * Подключения закончившихся матчей закрывает отдельный пул, чтобы медленный клиент не занимал поток тика.
+ */
+public class RoomManager {
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 2;
+
+    private final int tickRate;
+    private final int snapshotRate;
+    private final int maxRooms;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService closer; // закрывает подключения закончившихся матчей
+    private final Map<Integer, MatchRoom> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRoomId = new AtomicInteger(1);
+    private final AtomicInteger finishedRooms = new AtomicInteger();
+
+    private ClientConnection waiting; // первый игрок, который ждет пару
+
+    public RoomManager(int tickRate, int snapshotRate, int tickThreads, int maxRooms) {
+        this.tickRate = tickRate;
+        this.snapshotRate = snapshotRate;
+        this.maxRooms = maxRooms;
+
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.scheduler = new ScheduledThreadPoolExecutor(tickThreads, runnable -> {
+            Thread thread = new Thread(runnable, "Server-Tick-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // отмененные задачи закрытых комнат не должны висеть в очереди планировщика
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        AtomicInteger closerNumber = new AtomicInteger(1);
+        this.closer = Executors.newCachedThreadPool(
+                runnable -> Threads.create("Server-Close-" + closerNumber.getAndIncrement(), runnable));
+    }
+
+    // Новый клиент: либо ждет пару, либо вместе с ожидающим открывает комнату
+    public synchronized void accept(ClientConnection connection) {
+        if (rooms.size() >= maxRooms) {
+            System.out.println("Достигнут лимит комнат (" + maxRooms + "), подключение отклонено");
+            connection.close();
+            return;
+        }
+
+        if (waiting == null || !waiting.isConnected()) {
+            waiting = connection;
+            System.out.println("Игрок ждет противника");
+            return;
+        }
+
+        ClientConnection first = waiting;
+        waiting = null;
+        openRoom(first, connection);
+    }
+
+    private void openRoom(ClientConnection player1, ClientConnection player2) {
+        int roomId = nextRoomId.getAndIncrement();
+        MatchRoom room = new MatchRoom(roomId, player1, player2, tickRate, snapshotRate, () -> onRoomFinished(roomId));
+        rooms.put(roomId, room);
+        room.start(scheduler, closer);
+
+        System.out.println("Активных комнат: " + rooms.size());
+    }
+
+    private void onRoomFinished(int roomId) {
+        if (rooms.remove(roomId) != null) {
+            finishedRooms.incrementAndGet();
+            System.out.println("Комната " + roomId + " освобождена, активных комнат: " + rooms.size());
+            if (OutboundQueue.getTotalDropped() > 0) {
+                System.out.println("Медленные клиенты: выброшено устаревших сообщений " + OutboundQueue.getTotalDropped()
+                        + ", закрыто подключений " + OutboundQueue.getTotalOverflows());
+            }
+        }
+    }
+
+    public void shutdown() {
+        for (MatchRoom room : rooms.values()) {
+            room.finish();
+        }
+        scheduler.shutdownNow();
+        // последние сообщения комнат успевают уйти до выхода процесса
+        closer.shutdown();
+        try {
+            if (!closer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Не все подключения закрылись за " + SHUTDOWN_TIMEOUT_SECONDS + " с");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getActiveRoomCount() {
+        return rooms.size();
+    }
+
+    public int getFinishedRoomCount() {
+        return finishedRooms.get();
+    }
+}
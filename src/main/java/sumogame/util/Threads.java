@@ -0,0 +1,75 @@
+package sumogame.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * Создание служебных потоков (слушатели сокетов, задержки).
+ * В режиме виртуальных потоков (JDK 21+) каждый поток - виртуальный,
+ * иначе обычный платформенный daemon-поток.
+ * Виртуальные потоки берутся через reflection, чтобы сборка оставалась совместимой с JDK 17.
+ */
+public final class Threads {
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method BUILDER_NAME = findBuilderMethod("name", String.class);
+    private static final Method BUILDER_UNSTARTED = findBuilderMethod("unstarted", Runnable.class);
+
+    private static volatile boolean virtualThreads = Boolean.getBoolean("sumogame.virtualThreads");
+
+    private Threads() {}
+
+    public static boolean isVirtualThreadsAvailable() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_UNSTARTED != null;
+    }
+
+    // Включить виртуальные потоки; возвращает false, если JDK их не поддерживает
+    public static boolean setVirtualThreads(boolean enabled) {
+        if (enabled && !isVirtualThreadsAvailable()) {
+            System.err.println("Виртуальные потоки недоступны (нужен JDK 21+), используются обычные");
+            virtualThreads = false;
+            return false;
+        }
+        virtualThreads = enabled;
+        return true;
+    }
+
+    public static boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static Thread start(String name, Runnable task) {
+        Thread thread = create(name, task);
+        thread.start();
+        return thread;
+    }
+
+    public static Thread create(String name, Runnable task) {
+        if (virtualThreads) {
+            try {
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = BUILDER_NAME.invoke(builder, name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Не удалось создать виртуальный поток: " + e.getMessage());
+            }
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findBuilderMethod(String name, Class<?>... parameterTypes) {
+        try {
+            return findMethod(Class.forName("java.lang.Thread$Builder"), name, parameterTypes);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package sumogame.view;
 
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
 import javafx.scene.paint.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
@@ -10,43 +11,117 @@ import sumogame.model.*;
 import sumogame.util.ColorUtils;
 
 
-public class GameRenderer {
+public class GameRenderer implements MatchRenderer {
     private Canvas canvas;
     private GraphicsContext gc;
+    // Статический слой под игровым канвасом: фон и арена перерисовываются только
+    // при смене арены или размера, каждый кадр рисуются лишь игроки и надписи
+    private final Canvas backgroundCanvas;
+    private final GraphicsContext backgroundGc;
+    private ArenaType layerArena;
+    private RenderQuality layerQuality;
+
+    // Размер поля на экране; сам канвас при пониженном разрешении меньше и растянут до него
+    private final double viewWidth;
+    private final double viewHeight;
+    private final QualityGovernor governor = new QualityGovernor();
+    private RenderQuality quality;
 
     // Цвета в розовой палитре
-    private static final Color BACKGROUND_COLOR = Color.web("#FFF0F5"); // Лавандовый румянец
-    private static final Color TEXT_COLOR = Color.web("#8B6969"); // Коричневый
-    private static final Color ACCENT_COLOR = Color.web("#FF69B4"); // Ярко-розовый
-    private static final Color SHADOW_COLOR = Color.web("#DB7093"); // Темно-розовый
-    private static final Color HIGHLIGHT_COLOR = Color.web("#FFC0CB"); // Светло-розовый
-    private static final Color PLAYER_PINK = Color.web("#FFB6C1"); // Розовый
-    private static final Color PLAYER_GREEN = Color.web("#98FB98"); // Зеленый
-    private static final Color PLAYER_BLUE = Color.web("#ADD8E6"); // Голубой
-
-    public GameRenderer(Canvas canvas) {
+    static final Color BACKGROUND_COLOR = Color.web("#FFF0F5"); // Лавандовый румянец
+    static final Color TEXT_COLOR = Color.web("#8B6969"); // Коричневый
+    static final Color ACCENT_COLOR = Color.web("#FF69B4"); // Ярко-розовый
+    static final Color SHADOW_COLOR = Color.web("#DB7093"); // Темно-розовый
+    static final Color HIGHLIGHT_COLOR = Color.web("#FFC0CB"); // Светло-розовый
+
+    // Удаленного игрока рисуем с задержкой по истории позиций, чтобы сгладить рывки сети
+    private final PlayerPositions positions = new PlayerPositions();
+
+    // Игроки рисуются готовыми спрайтами
+    private final WrestlerSprites sprites = new WrestlerSprites();
+
+    // Что сейчас нарисовано на игровом канвасе, чтобы не перерисовывать тот же кадр
+    private enum Screen { NONE, WAITING, GAME }
+    private Screen drawnScreen = Screen.NONE;
+    private final double[] placedX = new double[2];
+    private final double[] placedY = new double[2];
+    private final double[] placedSize = new double[2];
+    private final WrestlerSprites.Variant[] placedVariant = new WrestlerSprites.Variant[2];
+    private final CharacterType[] placedType = new CharacterType[2];
+    private final int[] placedPlayerId = new int[2];
+    private double placedScale;
+    // Версия кадра состояния на канвасе (StateFrame.getVersion); interpolated - положение
+    // нарисованных игроков зависело от alpha или времени и может сдвинуться без нового кадра
+    private long drawnVersion = -1;
+    private boolean drawnInterpolated;
+
+    public GameRenderer(Canvas backgroundCanvas, Canvas canvas) {
+        this.backgroundCanvas = backgroundCanvas;
+        this.backgroundGc = backgroundCanvas.getGraphicsContext2D();
         this.canvas = canvas;
         this.gc = canvas.getGraphicsContext2D();
+        this.viewWidth = canvas.getWidth();
+        this.viewHeight = canvas.getHeight();
+        // поле занимает прежнее место и тогда, когда канвасы уменьшены
+        if (canvas.getParent() instanceof Region) {
+            ((Region) canvas.getParent()).setMinSize(viewWidth, viewHeight);
+        }
     }
 
-    public void render(GameState state, boolean waitingForOpponent) {
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    @Override
+    public void setLocalPlayerId(int localPlayerId) {
+        positions.setLocalPlayerId(localPlayerId);
+    }
 
-        if (waitingForOpponent) {
-            // В режиме ожидания рисуем только фон и арену
-            drawBackground();
-            drawArena(state);
+    // state - кадр последнего тика, alpha - доля времени между ним и следующим тиком симуляции.
+    // Тот же кадр состояния (версия из StateBuffer) без движения на экране не перерисовывается
+    @Override
+    public void render(StateFrame state, boolean waitingForOpponent, double alpha) {
+        long start = System.nanoTime();
+        applyQuality();
+        boolean layerChanged = updateStaticLayer(state.getCurrentArena());
 
-            // Сообщение об ожидании на канвасе
+        if (waitingForOpponent) {
+            // Экран ожидания не меняется: поверх фона и арены один раз рисуем сообщение
+            if (drawnScreen == Screen.WAITING && !layerChanged) return;
+            gc.clearRect(0, 0, viewWidth, viewHeight);
             drawWaitingMessage();
+            drawnScreen = Screen.WAITING;
         } else {
-            drawGameScreen(state);
+            boolean drawn = drawGameScreen(state, alpha, layerChanged || drawnScreen != Screen.GAME);
+            drawnScreen = Screen.GAME;
+            // Время считаем только по обычным кадрам матча: пропущенные ничего не стоят,
+            // а перерисовка статического слоя бывает редко
+            if (drawn && !layerChanged) {
+                governor.sample(System.nanoTime() - start, start);
+            }
         }
     }
 
+    // Переходит на ступень качества, выбранную регулятором
+    private void applyQuality() {
+        RenderQuality next = governor.getQuality();
+        if (next == quality) return;
+
+        double resolution = next.getResolution();
+        if (quality == null || resolution != quality.getResolution()) {
+            for (Canvas layer : new Canvas[] {backgroundCanvas, canvas}) {
+                layer.setWidth(Math.round(viewWidth * resolution));
+                layer.setHeight(Math.round(viewHeight * resolution));
+                layer.setScaleX(1 / resolution);
+                layer.setScaleY(1 / resolution);
+                // рисуем по-прежнему в координатах поля на экране
+                layer.getGraphicsContext2D().setTransform(resolution, 0, 0, resolution, 0, 0);
+            }
+        }
+        sprites.setFlat(!next.hasGradients());
+        quality = next;
+        drawnScreen = Screen.NONE;
+    }
+
     private void drawWaitingMessage() {
-        double width = canvas.getWidth();
-        double height = canvas.getHeight();
+        double width = viewWidth;
+        double height = viewHeight;
 
         // Полупрозрачный фон
         gc.setFill(Color.rgb(255, 240, 245, 0.8));
@@ -65,45 +140,71 @@ public class GameRenderer {
                 width / 2, height / 2 + 20);
     }
 
-    private void drawGameScreen(GameState state) {
-        drawBackground();
-        drawArena(state);
+    // true - канвас перерисован.
+    // Новый кадр состояния рисуется всегда; тот же кадр - только если игроки интерполируются
+    // и на экране сдвинулись
+    private boolean drawGameScreen(StateFrame state, double alpha, boolean force) {
+        boolean newFrame = state.getVersion() != drawnVersion;
+        if (!newFrame && !drawnInterpolated && !force) return false;
 
-        // Показываем игроков
-        if (state.getPlayer1() != null) {
-            drawPlayer(state.getPlayer1());
-        }
-        if (state.getPlayer2() != null) {
-            drawPlayer(state.getPlayer2());
+        long now = System.nanoTime();
+        if (newFrame) {
+            positions.record(state, now);
         }
+        drawnVersion = state.getVersion();
+
+        boolean changed = placePlayer(0, state.getPlayer1(), alpha, now);
+        changed |= placePlayer(1, state.getPlayer2(), alpha, now);
+        if (!newFrame && !changed && !force) return false;
+
+        gc.clearRect(0, 0, viewWidth, viewHeight);
+        drawPlayer(0);
+        drawPlayer(1);
+        return true;
+    }
+
+    // true - слой перерисован (новая арена или ступень качества)
+    private boolean updateStaticLayer(Arena arena) {
+        if (arena.getType() == layerArena && quality == layerQuality) return false;
+
+        layerArena = arena.getType();
+        layerQuality = quality;
+
+        backgroundGc.clearRect(0, 0, viewWidth, viewHeight);
+        drawBackground(backgroundGc);
+        drawArena(backgroundGc, arena);
+        return true;
     }
 
-    private void drawBackground() {
+    private void drawBackground(GraphicsContext gc) {
         // Градиентный фон в розовых тонах
-        LinearGradient gradient = new LinearGradient(
-                0, 0, 0, 1, true, CycleMethod.NO_CYCLE,
-                new Stop(0, BACKGROUND_COLOR),
-                new Stop(1, ColorUtils.lighten(BACKGROUND_COLOR, 10))
-        );
+        if (quality.hasGradients()) {
+            gc.setFill(new LinearGradient(
+                    0, 0, 0, 1, true, CycleMethod.NO_CYCLE,
+                    new Stop(0, BACKGROUND_COLOR),
+                    new Stop(1, ColorUtils.lighten(BACKGROUND_COLOR, 10))
+            ));
+        } else {
+            gc.setFill(BACKGROUND_COLOR);
+        }
+        gc.fillRect(0, 0, viewWidth, viewHeight);
 
-        gc.setFill(gradient);
-        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (!quality.hasDecorations()) return;
 
         // Тонкие декоративные линии
         gc.setStroke(HIGHLIGHT_COLOR);
         gc.setLineWidth(1);
         gc.setGlobalAlpha(0.3);
         for (int i = 0; i < 10; i++) {
-            double y = canvas.getHeight() * (i + 1) / 11;
-            gc.strokeLine(0, y, canvas.getWidth(), y);
+            double y = viewHeight * (i + 1) / 11;
+            gc.strokeLine(0, y, viewWidth, y);
         }
         gc.setGlobalAlpha(1.0);
     }
 
-    private void drawArena(GameState state) {
-        Arena arena = state.getCurrentArena();
-        double width = canvas.getWidth();
-        double height = canvas.getHeight();
+    private void drawArena(GraphicsContext gc, Arena arena) {
+        double width = viewWidth;
+        double height = viewHeight;
         double centerX = width / 2;
         double centerY = height / 2;
 
@@ -115,15 +216,17 @@ public class GameRenderer {
         Color arenaColor = Color.web(arena.getType().getColorHex());
 
         // Фон арены
-        RadialGradient arenaGradient = new RadialGradient(
-                0, 0, centerX, centerY, radius,
-                false, CycleMethod.NO_CYCLE,
-                new Stop(0, arenaColor.brighter()),
-                new Stop(0.7, arenaColor),
-                new Stop(1, arenaColor.darker())
-        );
-
-        gc.setFill(arenaGradient);
+        if (quality.hasGradients()) {
+            gc.setFill(new RadialGradient(
+                    0, 0, centerX, centerY, radius,
+                    false, CycleMethod.NO_CYCLE,
+                    new Stop(0, arenaColor.brighter()),
+                    new Stop(0.7, arenaColor),
+                    new Stop(1, arenaColor.darker())
+            ));
+        } else {
+            gc.setFill(arenaColor);
+        }
         gc.fillOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
 
         // Внешний ободок арены
@@ -131,17 +234,19 @@ public class GameRenderer {
         gc.setLineWidth(5);
         gc.strokeOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
 
-        // Внутренний ободок
-        gc.setStroke(HIGHLIGHT_COLOR);
-        gc.setLineWidth(2);
-        gc.strokeOval(centerX - radius + 3, centerY - radius + 3, radius * 2 - 6, radius * 2 - 6);
-
-        // Центральная линия
-        gc.setStroke(ACCENT_COLOR);
-        gc.setLineWidth(2);
-        gc.setGlobalAlpha(0.5);
-        gc.strokeLine(centerX, centerY - radius, centerX, centerY + radius);
-        gc.setGlobalAlpha(1.0);
+        if (quality.hasDecorations()) {
+            // Внутренний ободок
+            gc.setStroke(HIGHLIGHT_COLOR);
+            gc.setLineWidth(2);
+            gc.strokeOval(centerX - radius + 3, centerY - radius + 3, radius * 2 - 6, radius * 2 - 6);
+
+            // Центральная линия
+            gc.setStroke(ACCENT_COLOR);
+            gc.setLineWidth(2);
+            gc.setGlobalAlpha(0.5);
+            gc.strokeLine(centerX, centerY - radius, centerX, centerY + radius);
+            gc.setGlobalAlpha(1.0);
+        }
 
         // Название арены
         String arenaName = arena.getType().getName();
@@ -153,26 +258,28 @@ public class GameRenderer {
 
 
 
-    private Color getPlayerColor(Player player) {
-        String hex = player.getColorHex();
-        switch (hex) {
-            case "#FFC0CB": return PLAYER_PINK;
-            case "#90EE90": return PLAYER_GREEN;
-            case "#ADD8E6": return PLAYER_BLUE;
-            default: return PLAYER_PINK;
-        }
-    }
-
-    private void drawPlayer(Player player) {
-        double width = canvas.getWidth();
-        double height = canvas.getHeight();
+    // Экранное положение игрока index (0 или 1) в этом кадре; true - отличается от нарисованного
+    private boolean placePlayer(int index, StateFrame.PlayerFrame player, double alpha, long now) {
+        double width = viewWidth;
+        double height = viewHeight;
         double arenaWidth = GameConfig.ARENA_WIDTH;
         double arenaHeight = GameConfig.ARENA_HEIGHT;
 
+        // Свой игрок - между тиками симуляции, удаленный - из истории в прошлом
+        boolean interpolated = positions.locate(player, alpha, now);
+        if (index == 0) {
+            drawnInterpolated = interpolated;
+        } else {
+            drawnInterpolated |= interpolated;
+        }
+        double worldX = positions.getX();
+        double worldY = positions.getY();
+        int playerId = player.getPlayerId();
+
         // Конвертируем координаты
         double scale = Math.min(width / arenaWidth, height / arenaHeight);
-        double x = player.getX() * scale;
-        double y = player.getY() * scale;
+        double x = worldX * scale;
+        double y = worldY * scale;
 
         // Центрируем арену
         double offsetX = (width - arenaWidth * scale) / 2;
@@ -185,207 +292,42 @@ public class GameRenderer {
         double baseSize = 40 * scale;
         double size = baseSize * (player.getCurrentSize() / Player.BASE_SIZE);
 
-        Color playerColor = getPlayerColor(player);
-        Color darkColor = ColorUtils.darken(playerColor, 20);
-
-        // Увеличенные пропорции для правдоподобия
-        double headSize = size * 0.6;
-        double armSize = size * 0.4;
-        double legSize = size * 0.4;
-
-        // Тело (центральный круг)
-        drawBody(x, y, size, playerColor, darkColor);
-
-        // Пояс (маваси)
-        drawMawashi(x, y, size);
-
-        // Руки (шарики по бокам)
-        drawArms(x, y, size, armSize, playerColor, darkColor);
-
-        // Ноги (шарики снизу)
-        drawLegs(x, y, size, legSize, playerColor, darkColor);
-
-        // Голова
-        double headY = y - size * 0.35;
-        drawHead(x, headY, headSize, playerColor, darkColor);
-
-        // Лицо
-        drawFace(x, headY, headSize, player);
-
-        // Индикатор способности (только если игра началась)
-        if (player.isPowerUpActive() || player.isPowerUpAvailable()) {
-            drawAbilityIndicator(x, headY - headSize * 0.8, player);
-        }
-
-        // Информация об игроке (смещаем ниже, чтобы не перекрывалась)
-        drawPlayerInfo(x, y + size * 1.2, player);
-    }
-
-    private void drawBody(double x, double y, double size, Color baseColor, Color darkColor) {
-        // Градиент для тела
-        RadialGradient bodyGradient = new RadialGradient(
-                0, 0, x, y, size * 0.8,
-                false, CycleMethod.NO_CYCLE,
-                new Stop(0, ColorUtils.lighten(baseColor, 20)),
-                new Stop(0.7, baseColor),
-                new Stop(1, darkColor)
-        );
-
-        gc.setFill(bodyGradient);
-        gc.fillOval(x - size/2, y - size/2, size, size);
-
-        // Контур тела
-        gc.setStroke(darkColor);
-        gc.setLineWidth(3);
-        gc.strokeOval(x - size/2, y - size/2, size, size);
+        WrestlerSprites.Variant variant = player.isPowerUpActive() ? WrestlerSprites.Variant.ACTIVE
+                : player.isPowerUpAvailable() ? WrestlerSprites.Variant.AVAILABLE
+                : WrestlerSprites.Variant.PLAIN;
+
+        boolean changed = x != placedX[index] || y != placedY[index] || size != placedSize[index]
+                || variant != placedVariant[index] || player.getType() != placedType[index]
+                || playerId != placedPlayerId[index] || scale != placedScale;
+        placedX[index] = x;
+        placedY[index] = y;
+        placedSize[index] = size;
+        placedVariant[index] = variant;
+        placedType[index] = player.getType();
+        placedPlayerId[index] = playerId;
+        placedScale = scale;
+        return changed;
     }
 
-    private void drawMawashi(double x, double y, double size) {
-        // Толстый пояс сумоиста
-        gc.setStroke(SHADOW_COLOR);
-        gc.setLineWidth(size * 0.08);
-        gc.setLineCap(javafx.scene.shape.StrokeLineCap.ROUND);
+    private void drawPlayer(int index) {
+        double x = placedX[index];
+        double y = placedY[index];
+        double size = placedSize[index];
 
-        // Верхняя часть пояса
-        gc.strokeLine(x - size * 0.4, y - size * 0.1, x + size * 0.4, y - size * 0.1);
-        // Нижняя часть пояса
-        gc.strokeLine(x - size * 0.4, y + size * 0.1, x + size * 0.4, y + size * 0.1);
-    }
-
-    private void drawArms(double x, double y, double bodySize, double armSize, Color color, Color darkColor) {
-        // Левая рука (шарик слева)
-        double leftX = x - bodySize * 0.45;
-        drawArmBall(leftX, y, armSize, color, darkColor);
-
-        // Правая рука (шарик справа)
-        double rightX = x + bodySize * 0.45;
-        drawArmBall(rightX, y, armSize, color, darkColor);
-    }
-
-    private void drawArmBall(double x, double y, double size, Color color, Color darkColor) {
-        RadialGradient armGradient = new RadialGradient(
-                0, 0, x, y, size * 0.8,
-                false, CycleMethod.NO_CYCLE,
-                new Stop(0, ColorUtils.lighten(color, 30)),
-                new Stop(0.7, color),
-                new Stop(1, darkColor)
-        );
-
-        gc.setFill(armGradient);
-        gc.fillOval(x - size/2, y - size/2, size, size);
-
-        gc.setStroke(darkColor);
-        gc.setLineWidth(2);
-        gc.strokeOval(x - size/2, y - size/2, size, size);
-    }
-
-    private void drawLegs(double x, double y, double bodySize, double legSize, Color color, Color darkColor) {
-        // Левая нога (шарик слева снизу)
-        double leftX = x - bodySize * 0.35;
-        double leftY = y + bodySize * 0.45;
-        drawLegBall(leftX, leftY, legSize, color, darkColor);
-
-        // Правая нога (шарик справа снизу)
-        double rightX = x + bodySize * 0.35;
-        double rightY = y + bodySize * 0.45;
-        drawLegBall(rightX, rightY, legSize, color, darkColor);
-    }
+        // Тело, голова и индикатор способности - готовый спрайт
+        // при пониженном разрешении и спрайты рисуются мельче
+        sprites.setScale(placedScale, renderScale() * quality.getResolution());
+        sprites.drawWrestler(gc, placedType[index], placedVariant[index], x, y, size);
 
-    private void drawLegBall(double x, double y, double size, Color color, Color darkColor) {
-        RadialGradient legGradient = new RadialGradient(
-                0, 0, x, y, size * 0.8,
-                false, CycleMethod.NO_CYCLE,
-                new Stop(0, ColorUtils.lighten(color, 30)),
-                new Stop(0.7, color),
-                new Stop(1, darkColor)
-        );
-
-        gc.setFill(legGradient);
-        gc.fillOval(x - size/2, y - size/2, size, size);
-
-        gc.setStroke(darkColor);
-        gc.setLineWidth(2);
-        gc.strokeOval(x - size/2, y - size/2, size, size);
-    }
-
-    private void drawHead(double x, double y, double size, Color baseColor, Color darkColor) {
-        // Градиент для головы
-        RadialGradient headGradient = new RadialGradient(
-                0, 0, x, y, size * 0.8,
-                false, CycleMethod.NO_CYCLE,
-                new Stop(0, ColorUtils.lighten(baseColor, 30)),
-                new Stop(0.7, baseColor),
-                new Stop(1, darkColor)
-        );
-
-        gc.setFill(headGradient);
-        gc.fillOval(x - size/2, y - size/2, size, size);
-
-        // Контур головы
-        gc.setStroke(darkColor);
-        gc.setLineWidth(3);
-        gc.strokeOval(x - size/2, y - size/2, size, size);
-    }
-
-    private void drawFace(double x, double y, double size, Player player) {
-        // Глаза
-        double eyeY = y + size * 0.1;
-        double eyeSize = size * 0.12;
-
-        gc.setFill(Color.BLACK);
-        gc.fillOval(x - size * 0.25 - eyeSize/2, eyeY - eyeSize/2, eyeSize, eyeSize);
-        gc.fillOval(x + size * 0.25 - eyeSize/2, eyeY - eyeSize/2, eyeSize, eyeSize);
-
-        // Рот
-        double mouthWidth = size * 0.4;
-        gc.setStroke(Color.BLACK);
-        gc.setLineWidth(size * 0.02);
-        gc.strokeLine(x - mouthWidth/2, y + size * 0.2, x + mouthWidth/2, y + size * 0.2);
+        // Информация об игроке (смещаем ниже, чтобы не перекрывалась)
+        sprites.drawLabel(gc, placedPlayerId[index], x, y + size * 1.2);
     }
 
-    private void drawAbilityIndicator(double x, double y, Player player) {
-        double size = 20;
-
-        if (player.isPowerUpActive()) {
-            // Активная способность
-            gc.setFill(ACCENT_COLOR);
-            gc.setGlobalAlpha(0.6);
-            gc.fillOval(x - size, y - size, size * 2, size * 2);
-            gc.setGlobalAlpha(1.0);
-
-            gc.setFill(Color.WHITE);
-            gc.fillOval(x - size/2, y - size/2, size, size);
-
-            gc.setFill(ACCENT_COLOR);
-            gc.setFont(Font.font("Arial", FontWeight.BOLD, size * 0.7));
-            gc.setTextAlign(TextAlignment.CENTER);
-            gc.fillText("⚡", x, y + size * 0.3);
-        } else if (player.isPowerUpAvailable()) {
-            // Доступная способность
-            gc.setFill(HIGHLIGHT_COLOR);
-            gc.fillOval(x - size/2, y - size/2, size, size);
-
-            gc.setFill(ACCENT_COLOR);
-            gc.setFont(Font.font("Arial", FontWeight.BOLD, size * 0.8));
-            gc.setTextAlign(TextAlignment.CENTER);
-            gc.fillText("✓", x, y + size * 0.3);
+    // Масштаб экрана (HiDPI), чтобы спрайты не были размытыми
+    private double renderScale() {
+        if (canvas.getScene() == null || canvas.getScene().getWindow() == null) {
+            return 1;
         }
-    }
-
-    private void drawPlayerInfo(double x, double y, Player player) {
-        // Фон для информации
-        gc.setFill(Color.rgb(255, 255, 255, 0.8));
-        gc.fillRoundRect(x - 50, y - 15, 100, 30, 10, 10);
-
-        // Рамка
-        gc.setStroke(ACCENT_COLOR);
-        gc.setLineWidth(2);
-        gc.strokeRoundRect(x - 50, y - 15, 100, 30, 10, 10);
-
-        // Имя и номер
-        gc.setFill(TEXT_COLOR);
-        gc.setFont(Font.font("Arial", FontWeight.BOLD, 14));
-        gc.setTextAlign(TextAlignment.CENTER);
-        gc.fillText("Игрок " + player.getPlayerId(), x, y + 5);
+        return canvas.getScene().getWindow().getRenderScaleX();
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package sumogame.view;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import sumogame.model.GameConfig;
+import sumogame.model.StateFrame;
+
+/**
+ * Модель HUD: то, что видно на панели над ареной, в виде свойств JavaFX.
+ * update вызывается каждый кадр, но свойства меняются (и слушатели срабатывают),
+ * только когда меняется показываемое значение: счет, раунд, целая секунда таймера, состояние способности.
+ * Начальные значения совпадают с разметкой game-screen.fxml. Только FX поток.
+ */
+public class HudModel {
+    // Цвет таймера по оставшемуся времени
+    public enum TimerLevel { NORMAL, WARNING, CRITICAL }
+
+    // Надпись о способности локального игрока
+    public enum PowerUpStatus { READY, ACTIVE, USED }
+
+    // Индикатор способности одного игрока
+    public enum PowerUpBar { AVAILABLE, ACTIVE, EMPTY }
+
+    private final IntegerProperty player1Score = new SimpleIntegerProperty(0);
+    private final IntegerProperty player2Score = new SimpleIntegerProperty(0);
+    private final IntegerProperty roundNumber = new SimpleIntegerProperty(1);
+    private final IntegerProperty timeLeft = new SimpleIntegerProperty((int) GameConfig.ROUND_DURATION);
+    private final ObjectProperty<TimerLevel> timerLevel = new SimpleObjectProperty<>(TimerLevel.NORMAL);
+    private final ObjectProperty<PowerUpStatus> powerUpStatus = new SimpleObjectProperty<>(PowerUpStatus.READY);
+    // null - индикатор еще не выставлялся, в разметке он свой
+    private final ObjectProperty<PowerUpBar> player1Bar = new SimpleObjectProperty<>();
+    private final ObjectProperty<PowerUpBar> player2Bar = new SimpleObjectProperty<>();
+
+    private long frameVersion;
+
+    public void update(StateFrame state) {
+        // Кадр тот же - менять нечего
+        if (state.getVersion() == frameVersion) return;
+        frameVersion = state.getVersion();
+
+        // Свойства JavaFX сами не уведомляют слушателей, если значение не изменилось
+        player1Score.set(state.getPlayer1Score());
+        player2Score.set(state.getPlayer2Score());
+        roundNumber.set(state.getRoundNumber());
+
+        int seconds = (int) Math.ceil(state.getRoundTime());
+        timeLeft.set(seconds);
+        timerLevel.set(seconds <= 10 ? TimerLevel.CRITICAL : seconds <= 30 ? TimerLevel.WARNING : TimerLevel.NORMAL);
+
+        StateFrame.PlayerFrame player1 = state.getPlayer1();
+        StateFrame.PlayerFrame player2 = state.getPlayer2();
+        player1Bar.set(barOf(player1));
+        player2Bar.set(barOf(player2));
+
+        if (state.isPowerUpReady()) {
+            powerUpStatus.set(PowerUpStatus.READY);
+        } else if (player1.isPowerUpActive() || player2.isPowerUpActive()) {
+            powerUpStatus.set(PowerUpStatus.ACTIVE);
+        } else {
+            powerUpStatus.set(PowerUpStatus.USED);
+        }
+    }
+
+    private static PowerUpBar barOf(StateFrame.PlayerFrame player) {
+        if (player.isPowerUpActive()) return PowerUpBar.ACTIVE;
+        if (player.isPowerUpAvailable()) return PowerUpBar.AVAILABLE;
+        return PowerUpBar.EMPTY;
+    }
+
+    public ReadOnlyIntegerProperty player1ScoreProperty() { return player1Score; }
+    public ReadOnlyIntegerProperty player2ScoreProperty() { return player2Score; }
+    public ReadOnlyIntegerProperty roundNumberProperty() { return roundNumber; }
+    public ReadOnlyIntegerProperty timeLeftProperty() { return timeLeft; }
+    public ReadOnlyObjectProperty<TimerLevel> timerLevelProperty() { return timerLevel; }
+    public ReadOnlyObjectProperty<PowerUpStatus> powerUpStatusProperty() { return powerUpStatus; }
+    public ReadOnlyObjectProperty<PowerUpBar> player1BarProperty() { return player1Bar; }
+    public ReadOnlyObjectProperty<PowerUpBar> player2BarProperty() { return player2Bar; }
+}
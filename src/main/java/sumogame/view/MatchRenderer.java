@@ -0,0 +1,15 @@
+package sumogame.view;
+
+import sumogame.model.StateFrame;
+
+/**
+ * Отрисовка поля матча. Вызывается из фазы отрисовки FrameScheduler, в FX потоке.
+ * Реализации: GameRenderer (Canvas) и SceneGraphRenderer (узлы JavaFX), выбор - RendererBackend.
+ */
+public interface MatchRenderer {
+    // state - кадр последнего тика, alpha - доля времени между ним и следующим тиком симуляции
+    void render(StateFrame state, boolean waitingForOpponent, double alpha);
+
+    // Номер своего игрока, остальные считаются удаленными
+    void setLocalPlayerId(int localPlayerId);
+}
@@ -0,0 +1,81 @@
+package sumogame.view;
+
+import sumogame.model.StateFrame;
+
+/**
+ * Где рисовать игроков в мировых координатах. Свой игрок - между тиками симуляции,
+ * удаленный - по истории позиций с задержкой, чтобы сгладить рывки сети.
+ * Общая часть всех рендереров, вызывается из FX потока.
+ */
+final class PlayerPositions {
+    private static final long INTERPOLATION_DELAY_NANOS =
+            Long.getLong("sumogame.interpolationDelayMs", 100) * 1_000_000L;
+    private static final long MAX_EXTRAPOLATION_NANOS = 100_000_000L;
+
+    private volatile int localPlayerId; // меняется из потока сети (ASSIGN_PLAYER)
+    private final PositionHistory[] remoteHistories = {null, new PositionHistory(), new PositionHistory()};
+    private final double[] lastRemoteX = new double[3];
+    private final double[] lastRemoteY = new double[3];
+    private long lastSnapshotTick = -1;
+    private int lastRoundNumber;
+    private double x;
+    private double y;
+
+    // Номер своего игрока, остальные считаются удаленными
+    void setLocalPlayerId(int localPlayerId) {
+        this.localPlayerId = localPlayerId;
+    }
+
+    // Запоминаем позицию удаленного игрока, когда пришли новые данные:
+    // снимок сервера (даже если игрок стоит) или движение из сети в старом режиме
+    void record(StateFrame state, long now) {
+        if (state.getRoundNumber() != lastRoundNumber) {
+            // новый раунд - игроки переставлены, между аренами не интерполируем
+            lastRoundNumber = state.getRoundNumber();
+            remoteHistories[1].clear();
+            remoteHistories[2].clear();
+        }
+
+        boolean newSnapshot = state.getSnapshotTick() != lastSnapshotTick;
+        lastSnapshotTick = state.getSnapshotTick();
+
+        for (int playerId = 1; playerId <= 2; playerId++) {
+            if (playerId == localPlayerId) continue;
+
+            StateFrame.PlayerFrame player = playerId == 1 ? state.getPlayer1() : state.getPlayer2();
+            double px = player.getX();
+            double py = player.getY();
+            if (newSnapshot || px != lastRemoteX[playerId] || py != lastRemoteY[playerId]) {
+                remoteHistories[playerId].add(now, px, py);
+                lastRemoteX[playerId] = px;
+                lastRemoteY[playerId] = py;
+            }
+        }
+    }
+
+    // Положение игрока в этом кадре, результат в getX/getY.
+    // true - положение интерполировано и может измениться без нового кадра состояния (от alpha или времени)
+    boolean locate(StateFrame.PlayerFrame player, double alpha, long now) {
+        x = player.getInterpolatedX(alpha);
+        y = player.getInterpolatedY(alpha);
+        int playerId = player.getPlayerId();
+        if (playerId != localPlayerId) {
+            PositionHistory history = remoteHistories[playerId];
+            if (history.sample(now - INTERPOLATION_DELAY_NANOS, MAX_EXTRAPOLATION_NANOS)) {
+                x = history.getX();
+                y = history.getY();
+                return true;
+            }
+        }
+        return player.getInterpolatedX(0) != player.getInterpolatedX(1)
+                || player.getInterpolatedY(0) != player.getInterpolatedY(1);
+    }
+
+    double getX() {
+        return x;
+    }
+
+    double getY() {
+        return y;
+    }
+}
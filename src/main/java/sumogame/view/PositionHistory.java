@@ -0,0 +1,100 @@
+package sumogame.view;
+
+/**
+ * История позиций удаленного игрока с метками времени (System.nanoTime).
+ * Игрок рисуется немного в прошлом, между двумя соседними записями,
+ * а если данные запаздывают - по последней скорости, но не дальше maxExtrapolation.
+ */
+public class PositionHistory {
+    private static final int CAPACITY = 32;
+
+    private final long[] times = new long[CAPACITY];
+    private final double[] xs = new double[CAPACITY];
+    private final double[] ys = new double[CAPACITY];
+    private int start; // индекс самой старой записи
+    private int size;
+
+    private double sampleX;
+    private double sampleY;
+
+    public void add(long time, double x, double y) {
+        if (size > 0 && time <= times[index(size - 1)]) {
+            return; // время должно только расти
+        }
+        int index = index(size);
+        times[index] = time;
+        xs[index] = x;
+        ys[index] = y;
+        if (size < CAPACITY) {
+            size++;
+        } else {
+            start = (start + 1) % CAPACITY;
+        }
+    }
+
+    // Позиция на момент renderTime, результат в getX/getY. false - записей еще нет
+    public boolean sample(long renderTime, long maxExtrapolation) {
+        if (size == 0) return false;
+
+        int newest = index(size - 1);
+        if (renderTime >= times[newest]) {
+            sampleLate(renderTime, newest, maxExtrapolation);
+            return true;
+        }
+
+        int oldest = index(0);
+        if (renderTime <= times[oldest]) {
+            sampleX = xs[oldest];
+            sampleY = ys[oldest];
+            return true;
+        }
+
+        // ищем пару записей вокруг renderTime, с конца: нужное время почти всегда в хвосте
+        for (int i = size - 2; i >= 0; i--) {
+            int from = index(i);
+            if (times[from] <= renderTime) {
+                int to = index(i + 1);
+                double t = (double) (renderTime - times[from]) / (times[to] - times[from]);
+                sampleX = xs[from] + (xs[to] - xs[from]) * t;
+                sampleY = ys[from] + (ys[to] - ys[from]) * t;
+                return true;
+            }
+        }
+        return true;
+    }
+
+    // Новых данных на renderTime еще нет: продолжаем движение по последней скорости.
+    // Дольше maxExtrapolation не угадываем и остаемся в последней известной точке
+    private void sampleLate(long renderTime, int newest, long maxExtrapolation) {
+        sampleX = xs[newest];
+        sampleY = ys[newest];
+
+        long overdue = renderTime - times[newest];
+        if (size < 2 || overdue > maxExtrapolation) return;
+
+        int previous = index(size - 2);
+        long interval = times[newest] - times[previous];
+        if (interval <= 0 || interval > maxExtrapolation) return;
+
+        double t = (double) overdue / interval;
+        sampleX += (xs[newest] - xs[previous]) * t;
+        sampleY += (ys[newest] - ys[previous]) * t;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    public double getX() {
+        return sampleX;
+    }
+
+    public double getY() {
+        return sampleY;
+    }
+
+    private int index(int i) {
+        return (start + i) % CAPACITY;
+    }
+}
@@ -0,0 +1,96 @@
+package sumogame.view;
+
+import sumogame.model.GameConfig;
+
+/**
+ * Выбирает ступень RenderQuality по времени отрисовки кадра.
+ * Время сглаживается; если оно держится выше бюджета OVERRUN_FRAMES кадров подряд - ступенью ниже,
+ * если ниже половины бюджета дольше upDelay - ступенью выше. Если после повышения качество
+ * снова пришлось понизить, следующая попытка повышения откладывается вдвое дольше.
+ */
+final class QualityGovernor {
+    private static final int OVERRUN_FRAMES = 30;
+    // После смены ступени кэши рисуются заново, первые кадры не считаем
+    private static final int SETTLE_FRAMES = 10;
+    private static final double SMOOTHING = 0.1;
+    private static final long MIN_UP_DELAY_NANOS = 3_000_000_000L;
+    private static final long MAX_UP_DELAY_NANOS = 60_000_000_000L;
+    // Понижение в течение этого времени после повышения - повышение не удалось
+    private static final long PROBE_NANOS = 5_000_000_000L;
+
+    private final double budgetMillis;
+    private final boolean pinned;
+    private RenderQuality quality;
+    private double averageMillis = -1;
+    private int overrunFrames;
+    private int settleFrames;
+    private long headroomSince;
+    private long upDelay = MIN_UP_DELAY_NANOS;
+    private long lastStepUp;
+
+    QualityGovernor() {
+        this(GameConfig.RENDER_BUDGET_MS, RenderQuality.parse(System.getProperty("sumogame.quality")));
+    }
+
+    // fixed - закрепленная ступень (тогда время не влияет), null - выбирать автоматически
+    QualityGovernor(double budgetMillis, RenderQuality fixed) {
+        this.budgetMillis = budgetMillis;
+        this.pinned = fixed != null;
+        this.quality = pinned ? fixed : RenderQuality.FULL;
+        if (pinned) {
+            System.out.println("Качество отрисовки закреплено: " + quality);
+        }
+    }
+
+    RenderQuality getQuality() {
+        return quality;
+    }
+
+    // Время одного нарисованного кадра; true - ступень изменилась
+    boolean sample(long frameNanos, long now) {
+        if (pinned) return false;
+        if (settleFrames > 0) {
+            settleFrames--;
+            return false;
+        }
+
+        double millis = frameNanos / 1_000_000.0;
+        averageMillis = averageMillis < 0 ? millis : averageMillis + (millis - averageMillis) * SMOOTHING;
+
+        if (averageMillis > budgetMillis) {
+            headroomSince = 0;
+            if (++overrunFrames >= OVERRUN_FRAMES && quality != RenderQuality.REDUCED) {
+                if (lastStepUp != 0 && now - lastStepUp < PROBE_NANOS) {
+                    upDelay = Math.min(upDelay * 2, MAX_UP_DELAY_NANOS);
+                }
+                lastStepUp = 0;
+                return change(quality.lower());
+            }
+            return false;
+        }
+
+        overrunFrames = 0;
+        if (averageMillis >= budgetMillis / 2 || quality == RenderQuality.FULL) {
+            headroomSince = 0;
+            return false;
+        }
+        if (headroomSince == 0) {
+            headroomSince = now;
+        } else if (now - headroomSince >= upDelay) {
+            lastStepUp = now;
+            return change(quality.higher());
+        }
+        return false;
+    }
+
+    private boolean change(RenderQuality next) {
+        System.out.println("Качество отрисовки: " + quality + " -> " + next
+                + String.format(" (%.2f мс при бюджете %.0f мс)", averageMillis, budgetMillis));
+        quality = next;
+        averageMillis = -1;
+        overrunFrames = 0;
+        headroomSince = 0;
+        settleFrames = SETTLE_FRAMES;
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package sumogame.view;
+
+/**
+ * Ступени качества отрисовки, от полной к самой дешевой. Каждая следующая убирает еще что-то:
+ * градиенты, потом декоративные линии, потом рисует в уменьшенный канвас, растянутый до прежнего размера.
+ * По умолчанию ступень выбирает QualityGovernor, закрепить можно через -Dsumogame.quality=flat.
+ */
+enum RenderQuality {
+    FULL(true, true, 1.0),
+    FLAT(false, true, 1.0),
+    PLAIN(false, false, 1.0),
+    REDUCED(false, false, 0.5);
+
+    private final boolean gradients;
+    private final boolean decorations;
+    private final double resolution;
+
+    RenderQuality(boolean gradients, boolean decorations, double resolution) {
+        this.gradients = gradients;
+        this.decorations = decorations;
+        this.resolution = resolution;
+    }
+
+    boolean hasGradients() { return gradients; }
+    boolean hasDecorations() { return decorations; }
+    // Доля разрешения канваса относительно его размера на экране
+    double getResolution() { return resolution; }
+
+    RenderQuality lower() {
+        return this == REDUCED ? REDUCED : values()[ordinal() + 1];
+    }
+
+    RenderQuality higher() {
+        return this == FULL ? FULL : values()[ordinal() - 1];
+    }
+
+    // null - ступень не закреплена (значение не задано или "auto")
+    static RenderQuality parse(String value) {
+        if (value == null || value.trim().equalsIgnoreCase("auto")) return null;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестное качество отрисовки: " + value + ", выбирается автоматически");
+            return null;
+        }
+    }
+}
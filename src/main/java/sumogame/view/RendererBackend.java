@@ -0,0 +1,26 @@
+package sumogame.view;
+
+/**
+ * Способ отрисовки поля. По умолчанию CANVAS (GameRenderer),
+ * SCENE (SceneGraphRenderer) включается через -Dsumogame.renderer=scene.
+ */
+public enum RendererBackend {
+    CANVAS,
+    SCENE;
+
+    private static final RendererBackend current = parse(System.getProperty("sumogame.renderer"), CANVAS);
+
+    public static RendererBackend current() {
+        return current;
+    }
+
+    public static RendererBackend parse(String value, RendererBackend defaultBackend) {
+        if (value == null) return defaultBackend;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный способ отрисовки: " + value + ", используется " + defaultBackend);
+            return defaultBackend;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package sumogame.view;
+
+import javafx.geometry.VPos;
+import javafx.scene.CacheHint;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.*;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+import sumogame.model.*;
+import sumogame.util.ColorUtils;
+
+/**
+ * Отрисовка поля узлами JavaFX вместо Canvas (-Dsumogame.renderer=scene).
+ * Арена и каждый сумоист собираются из фигур один раз и кэшируются как картинки
+ * (setCache, CacheHint.SPEED), в кадре меняются только сдвиг и масштаб групп
+ * и видимость индикаторов способности. Внешний вид тот же, что у GameRenderer.
+ */
+public class SceneGraphRenderer implements MatchRenderer {
+    // Сумоист собирается в этом размере тела и масштабируется до нужного
+    private static final double BASE_SIZE = 64;
+    private static final double INDICATOR_SIZE = 20;
+
+    private final double width;
+    private final double height;
+    private final Pane root = new Pane();
+    private final Group arenaLayer = new Group();
+    private final Group waitingLayer;
+    private final Wrestler[] wrestlers = {new Wrestler(), new Wrestler()};
+    private final PlayerPositions positions = new PlayerPositions();
+    private ArenaType layerArena;
+
+    // field - контейнер поля, его содержимое заменяется узлами рендерера
+    public SceneGraphRenderer(Pane field, double width, double height) {
+        this.width = width;
+        this.height = height;
+        root.setMinSize(width, height);
+        root.setPrefSize(width, height);
+        root.setMaxSize(width, height);
+        root.setClip(new Rectangle(width, height));
+
+        cache(arenaLayer);
+        waitingLayer = buildWaitingMessage();
+        waitingLayer.setVisible(false);
+
+        root.getChildren().add(arenaLayer);
+        for (Wrestler wrestler : wrestlers) {
+            root.getChildren().addAll(wrestler.body, wrestler.available, wrestler.active, wrestler.label);
+        }
+        root.getChildren().add(waitingLayer);
+        field.getChildren().setAll(root);
+        System.out.println("Отрисовка узлами сцены, поле " + (int) width + "x" + (int) height);
+    }
+
+    @Override
+    public void setLocalPlayerId(int localPlayerId) {
+        positions.setLocalPlayerId(localPlayerId);
+    }
+
+    @Override
+    public void render(StateFrame state, boolean waitingForOpponent, double alpha) {
+        Arena arena = state.getCurrentArena();
+        if (arena.getType() != layerArena) {
+            layerArena = arena.getType();
+            arenaLayer.getChildren().setAll(buildBackground(), buildArena(arena));
+        }
+
+        waitingLayer.setVisible(waitingForOpponent);
+        if (waitingForOpponent) {
+            for (Wrestler wrestler : wrestlers) {
+                wrestler.hide();
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        positions.record(state, now);
+        wrestlers[0].update(state.getPlayer1(), alpha, now);
+        wrestlers[1].update(state.getPlayer2(), alpha, now);
+    }
+
+    /**
+     * Узлы одного игрока: тело (масштабируется), индикаторы способности и подпись (только сдвигаются).
+     */
+    private final class Wrestler {
+        final Group body = new Group();
+        final Group available = new Group();
+        final Group active = new Group();
+        final Group label = new Group();
+        final Translate position = new Translate();
+        final Scale scale = new Scale(1, 1, 0, 0);
+        CharacterType type;
+        int playerId;
+
+        Wrestler() {
+            body.getTransforms().addAll(position, scale);
+            cache(body);
+            cache(available);
+            cache(active);
+            cache(label);
+            hide();
+        }
+
+        void update(StateFrame.PlayerFrame player, double alpha, long now) {
+            if (player.getType() != type) {
+                type = player.getType();
+                body.getChildren().setAll(buildWrestler(type));
+                available.getChildren().setAll(buildIndicator(false));
+                active.getChildren().setAll(buildIndicator(true));
+            }
+            if (player.getPlayerId() != playerId) {
+                playerId = player.getPlayerId();
+                label.getChildren().setAll(buildLabel(playerId));
+            }
+
+            // Те же координаты, что у GameRenderer: арена вписана в поле и отцентрирована
+            positions.locate(player, alpha, now);
+            double fieldScale = Math.min(width / GameConfig.ARENA_WIDTH, height / GameConfig.ARENA_HEIGHT);
+            double x = positions.getX() * fieldScale + (width - GameConfig.ARENA_WIDTH * fieldScale) / 2;
+            double y = positions.getY() * fieldScale + (height - GameConfig.ARENA_HEIGHT * fieldScale) / 2;
+            double size = 40 * fieldScale * (player.getCurrentSize() / Player.BASE_SIZE);
+
+            position.setX(x);
+            position.setY(y);
+            scale.setX(size / BASE_SIZE);
+            scale.setY(size / BASE_SIZE);
+            body.setVisible(true);
+
+            // индикатор над головой не масштабируется, как и в спрайтах
+            double indicatorY = y - size * 0.83;
+            available.setTranslateX(x);
+            available.setTranslateY(indicatorY);
+            available.setVisible(player.isPowerUpAvailable() && !player.isPowerUpActive());
+            active.setTranslateX(x);
+            active.setTranslateY(indicatorY);
+            active.setVisible(player.isPowerUpActive());
+
+            label.setTranslateX(x);
+            label.setTranslateY(y + size * 1.2);
+            label.setVisible(true);
+        }
+
+        void hide() {
+            body.setVisible(false);
+            available.setVisible(false);
+            active.setVisible(false);
+            label.setVisible(false);
+        }
+    }
+
+    private static void cache(Node node) {
+        node.setCache(true);
+        node.setCacheHint(CacheHint.SPEED);
+    }
+
+    private Group buildBackground() {
+        Rectangle background = new Rectangle(width, height, new LinearGradient(
+                0, 0, 0, 1, true, CycleMethod.NO_CYCLE,
+                new Stop(0, GameRenderer.BACKGROUND_COLOR),
+                new Stop(1, ColorUtils.lighten(GameRenderer.BACKGROUND_COLOR, 10))
+        ));
+        Group group = new Group(background);
+
+        // Тонкие декоративные линии
+        for (int i = 0; i < 10; i++) {
+            double y = height * (i + 1) / 11;
+            Line line = new Line(0, y, width, y);
+            line.setStroke(GameRenderer.HIGHLIGHT_COLOR);
+            line.setOpacity(0.3);
+            group.getChildren().add(line);
+        }
+        return group;
+    }
+
+    private Group buildArena(Arena arena) {
+        double centerX = width / 2;
+        double centerY = height / 2;
+        double radius = arena.getRadius() * Math.min(width / arena.getWidth(), height / arena.getHeight());
+        Color arenaColor = Color.web(arena.getType().getColorHex());
+
+        Circle floor = new Circle(centerX, centerY, radius, new RadialGradient(
+                0, 0, centerX, centerY, radius,
+                false, CycleMethod.NO_CYCLE,
+                new Stop(0, arenaColor.brighter()),
+                new Stop(0.7, arenaColor),
+                new Stop(1, arenaColor.darker())
+        ));
+        floor.setStroke(arenaColor.darker());
+        floor.setStrokeWidth(5);
+
+        Circle innerRim = new Circle(centerX, centerY, radius - 3, null);
+        innerRim.setStroke(GameRenderer.HIGHLIGHT_COLOR);
+        innerRim.setStrokeWidth(2);
+
+        Line centerLine = new Line(centerX, centerY - radius, centerX, centerY + radius);
+        centerLine.setStroke(GameRenderer.ACCENT_COLOR);
+        centerLine.setStrokeWidth(2);
+        centerLine.setOpacity(0.5);
+
+        Text name = centeredText("🌸 " + arena.getType().getName() + " 🌸",
+                Font.font("Arial", FontWeight.BOLD, 20), GameRenderer.ACCENT_COLOR, centerX, centerY + radius + 35);
+        return new Group(floor, innerRim, centerLine, name);
+    }
+
+    // Сумоист в размере BASE_SIZE, (0, 0) - центр тела; фигуры те же, что в WrestlerSprites
+    private static Group buildWrestler(CharacterType type) {
+        double size = BASE_SIZE;
+        Color color = WrestlerSprites.getPlayerColor(type);
+        Color darkColor = ColorUtils.darken(color, 20);
+        Group group = new Group();
+
+        // Тело
+        group.getChildren().add(ball(0, 0, size, color, darkColor, 20, 3));
+
+        // Пояс (маваси)
+        for (double beltY : new double[] {-size * 0.1, size * 0.1}) {
+            Line belt = new Line(-size * 0.4, beltY, size * 0.4, beltY);
+            belt.setStroke(GameRenderer.SHADOW_COLOR);
+            belt.setStrokeWidth(size * 0.08);
+            belt.setStrokeLineCap(StrokeLineCap.ROUND);
+            group.getChildren().add(belt);
+        }
+
+        // Руки и ноги
+        double limbSize = size * 0.4;
+        group.getChildren().addAll(
+                ball(-size * 0.45, 0, limbSize, color, darkColor, 30, 2),
+                ball(size * 0.45, 0, limbSize, color, darkColor, 30, 2),
+                ball(-size * 0.35, size * 0.45, limbSize, color, darkColor, 30, 2),
+                ball(size * 0.35, size * 0.45, limbSize, color, darkColor, 30, 2));
+
+        // Голова и лицо
+        double headY = -size * 0.35;
+        double headSize = size * 0.6;
+        double eyeY = headY + headSize * 0.1;
+        double eyeRadius = headSize * 0.06;
+        Line mouth = new Line(-headSize * 0.2, headY + headSize * 0.2, headSize * 0.2, headY + headSize * 0.2);
+        mouth.setStrokeWidth(headSize * 0.02);
+        group.getChildren().addAll(
+                ball(0, headY, headSize, color, darkColor, 30, 3),
+                new Circle(-headSize * 0.25, eyeY, eyeRadius, Color.BLACK),
+                new Circle(headSize * 0.25, eyeY, eyeRadius, Color.BLACK),
+                mouth);
+        return group;
+    }
+
+    // Круг с объемной заливкой и контуром, (x, y) - центр
+    private static Circle ball(double x, double y, double size, Color color, Color darkColor,
+                               double lighten, double strokeWidth) {
+        Circle circle = new Circle(x, y, size / 2, new RadialGradient(
+                0, 0, x, y, size * 0.8,
+                false, CycleMethod.NO_CYCLE,
+                new Stop(0, ColorUtils.lighten(color, lighten)),
+                new Stop(0.7, color),
+                new Stop(1, darkColor)
+        ));
+        circle.setStroke(darkColor);
+        circle.setStrokeWidth(strokeWidth);
+        return circle;
+    }
+
+    // Индикатор способности, (0, 0) - его центр
+    private static Group buildIndicator(boolean active) {
+        double size = INDICATOR_SIZE;
+        if (active) {
+            Circle glow = new Circle(0, 0, size, GameRenderer.ACCENT_COLOR);
+            glow.setOpacity(0.6);
+            return new Group(glow, new Circle(0, 0, size / 2, Color.WHITE),
+                    centeredText("⚡", Font.font("Arial", FontWeight.BOLD, size * 0.7),
+                            GameRenderer.ACCENT_COLOR, 0, size * 0.3));
+        }
+        return new Group(new Circle(0, 0, size / 2, GameRenderer.HIGHLIGHT_COLOR),
+                centeredText("✓", Font.font("Arial", FontWeight.BOLD, size * 0.8),
+                        GameRenderer.ACCENT_COLOR, 0, size * 0.3));
+    }
+
+    // Подпись "Игрок N", (0, 0) - ее центр
+    private static Group buildLabel(int playerId) {
+        Rectangle frame = new Rectangle(-50, -15, 100, 30);
+        frame.setArcWidth(10);
+        frame.setArcHeight(10);
+        frame.setFill(Color.rgb(255, 255, 255, 0.8));
+        frame.setStroke(GameRenderer.ACCENT_COLOR);
+        frame.setStrokeWidth(2);
+        return new Group(frame, centeredText("Игрок " + playerId,
+                Font.font("Arial", FontWeight.BOLD, 14), GameRenderer.TEXT_COLOR, 0, 5));
+    }
+
+    private Group buildWaitingMessage() {
+        Rectangle shade = new Rectangle(width, height, Color.rgb(255, 240, 245, 0.8));
+        Text title = centeredText("⏳ Ожидание противника...",
+                Font.font("Arial", FontWeight.BOLD, 36), GameRenderer.ACCENT_COLOR, width / 2, height / 2 - 50);
+        Text hint = centeredText("Пожалуйста, подождите подключения второго игрока",
+                Font.font("Arial", 18), GameRenderer.TEXT_COLOR, width / 2, height / 2 + 20);
+        Group group = new Group(shade, title, hint);
+        cache(group);
+        return group;
+    }
+
+    // Текст с центром по x и базовой линией на y, как fillText с TextAlignment.CENTER
+    private static Text centeredText(String value, Font font, Color color, double x, double y) {
+        Text text = new Text(value);
+        text.setFont(font);
+        text.setFill(color);
+        text.setTextOrigin(VPos.BASELINE);
+        text.setX(x - text.getLayoutBounds().getWidth() / 2);
+        text.setY(y);
+        return text;
+    }
+}
@@ -0,0 +1,338 @@
+package sumogame.view;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import sumogame.model.CharacterType;
+import sumogame.util.ColorUtils;
+
+import java.util.Arrays;
+
+/**
+ * Заранее нарисованные сумоисты: каждый CharacterType рисуется один раз на размер
+ * (с шагом SIZE_STEP пикселей) и вариант способности, дальше кадр - один drawImage на игрока.
+ * Подписи "Игрок N" кэшируются так же. Рисуется через снимок отдельного канваса,
+ * поэтому только в FX потоке. При смене масштаба канваса или заливки кэш сбрасывается.
+ */
+final class WrestlerSprites {
+    enum Variant {
+        PLAIN,     // способность использована
+        AVAILABLE, // готова
+        ACTIVE     // действует
+    }
+
+    private static final double SIZE_STEP = 4;
+    private static final int MAX_BUCKETS = 256;
+    private static final double PADDING = 4; // запас под обводку
+    private static final double INDICATOR_SIZE = 20;
+    private static final double LABEL_WIDTH = 100;
+    private static final double LABEL_HEIGHT = 30;
+
+    private static final Color PLAYER_PINK = Color.web("#FFB6C1"); // Розовый
+    private static final Color PLAYER_GREEN = Color.web("#98FB98"); // Зеленый
+    private static final Color PLAYER_BLUE = Color.web("#ADD8E6"); // Голубой
+
+    // [тип][вариант][размер / SIZE_STEP], без упаковки ключей - поиск не выделяет память
+    private final Image[][][] sprites =
+            new Image[CharacterType.values().length][Variant.values().length][MAX_BUCKETS];
+    private Image[] labels = new Image[3];
+    private double scale;
+    private double renderScale;
+    private boolean flat; // сплошная заливка вместо градиентов
+    private int spriteCount;
+
+    // Масштаб мира к канвасу и масштаб экрана (HiDPI); при изменении спрайты рисуются заново
+    void setScale(double scale, double renderScale) {
+        if (scale == this.scale && renderScale == this.renderScale) return;
+
+        if (spriteCount > 0) {
+            System.out.println("Масштаб изменился, кэш спрайтов сброшен (" + spriteCount + " шт)");
+        }
+        this.scale = scale;
+        this.renderScale = renderScale;
+        clear();
+    }
+
+    // Сплошная заливка вместо градиентов (пониженное качество)
+    void setFlat(boolean flat) {
+        if (flat == this.flat) return;
+        this.flat = flat;
+        clear();
+    }
+
+    private void clear() {
+        for (Image[][] byVariant : sprites) {
+            for (Image[] byBucket : byVariant) {
+                Arrays.fill(byBucket, null);
+            }
+        }
+        Arrays.fill(labels, null);
+        spriteCount = 0;
+    }
+
+    // (x, y) - центр тела, size - диаметр тела в пикселях канваса
+    void drawWrestler(GraphicsContext gc, CharacterType type, Variant variant, double x, double y, double size) {
+        int bucket = (int) Math.min(MAX_BUCKETS - 1, Math.max(1, Math.round(size / SIZE_STEP)));
+        Image sprite = sprites[type.ordinal()][variant.ordinal()][bucket];
+        if (sprite == null) {
+            sprite = renderWrestler(type, variant, bucket * SIZE_STEP);
+            sprites[type.ordinal()][variant.ordinal()][bucket] = sprite;
+            spriteCount++;
+        }
+
+        // спрайт нарисован для размера корзины, до точного размера доводим при выводе
+        double k = size / (bucket * SIZE_STEP);
+        double halfWidth = halfWidth(bucket * SIZE_STEP) * k;
+        double top = top(bucket * SIZE_STEP) * k;
+        double bottom = bottom(bucket * SIZE_STEP) * k;
+        gc.drawImage(sprite, x - halfWidth, y - top, halfWidth * 2, top + bottom);
+    }
+
+    // Подпись с номером игрока, (x, y) - ее центр
+    void drawLabel(GraphicsContext gc, int playerId, double x, double y) {
+        if (playerId >= labels.length) {
+            labels = Arrays.copyOf(labels, playerId + 1);
+        }
+        Image label = labels[playerId];
+        if (label == null) {
+            label = renderLabel(playerId);
+            labels[playerId] = label;
+        }
+        gc.drawImage(label, x - LABEL_WIDTH / 2 - PADDING, y - LABEL_HEIGHT / 2 - PADDING,
+                LABEL_WIDTH + PADDING * 2, LABEL_HEIGHT + PADDING * 2);
+    }
+
+    // Границы спрайта от центра тела: руки по бокам, ноги снизу, индикатор способности над головой
+    private static double halfWidth(double size) {
+        return Math.max(size * 0.65, INDICATOR_SIZE) + PADDING;
+    }
+
+    private static double top(double size) {
+        return size * 0.83 + INDICATOR_SIZE + PADDING;
+    }
+
+    private static double bottom(double size) {
+        return size * 0.65 + PADDING;
+    }
+
+    private Image renderWrestler(CharacterType type, Variant variant, double size) {
+        double halfWidth = halfWidth(size);
+        double top = top(size);
+        Canvas canvas = new Canvas(halfWidth * 2 * renderScale, (top + bottom(size)) * renderScale);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.scale(renderScale, renderScale);
+
+        double x = halfWidth;
+        double y = top;
+        Color playerColor = getPlayerColor(type);
+        Color darkColor = ColorUtils.darken(playerColor, 20);
+
+        // Увеличенные пропорции для правдоподобия
+        double headSize = size * 0.6;
+        double armSize = size * 0.4;
+        double legSize = size * 0.4;
+
+        // Тело (центральный круг)
+        drawBody(gc, x, y, size, playerColor, darkColor, flat);
+
+        // Пояс (маваси)
+        drawMawashi(gc, x, y, size);
+
+        // Руки (шарики по бокам)
+        drawArms(gc, x, y, size, armSize, playerColor, darkColor, flat);
+
+        // Ноги (шарики снизу)
+        drawLegs(gc, x, y, size, legSize, playerColor, darkColor, flat);
+
+        // Голова
+        double headY = y - size * 0.35;
+        drawHead(gc, x, headY, headSize, playerColor, darkColor, flat);
+
+        // Лицо
+        drawFace(gc, x, headY, headSize);
+
+        // Индикатор способности
+        if (variant != Variant.PLAIN) {
+            drawAbilityIndicator(gc, x, headY - headSize * 0.8, variant);
+        }
+        return snapshot(canvas);
+    }
+
+    private Image renderLabel(int playerId) {
+        Canvas canvas = new Canvas((LABEL_WIDTH + PADDING * 2) * renderScale, (LABEL_HEIGHT + PADDING * 2) * renderScale);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.scale(renderScale, renderScale);
+        drawPlayerInfo(gc, LABEL_WIDTH / 2 + PADDING, LABEL_HEIGHT / 2 + PADDING, playerId);
+        return snapshot(canvas);
+    }
+
+    private static Image snapshot(Canvas canvas) {
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
+    }
+
+    static Color getPlayerColor(CharacterType type) {
+        switch (type.getColorHex()) {
+            case "#FFC0CB": return PLAYER_PINK;
+            case "#90EE90": return PLAYER_GREEN;
+            case "#ADD8E6": return PLAYER_BLUE;
+            default: return PLAYER_PINK;
+        }
+    }
+
+    // Объемная заливка круга: от светлого центра к темному краю, в упрощенном режиме - просто цвет
+    private static Paint shade(double x, double y, double size, Color baseColor, Color darkColor,
+                               double lighten, boolean flat) {
+        if (flat) return baseColor;
+        return new RadialGradient(
+                0, 0, x, y, size * 0.8,
+                false, CycleMethod.NO_CYCLE,
+                new Stop(0, ColorUtils.lighten(baseColor, lighten)),
+                new Stop(0.7, baseColor),
+                new Stop(1, darkColor)
+        );
+    }
+
+    private static void drawBody(GraphicsContext gc, double x, double y, double size, Color baseColor, Color darkColor,
+                                 boolean flat) {
+        // Градиент для тела
+        gc.setFill(shade(x, y, size, baseColor, darkColor, 20, flat));
+        gc.fillOval(x - size/2, y - size/2, size, size);
+
+        // Контур тела
+        gc.setStroke(darkColor);
+        gc.setLineWidth(3);
+        gc.strokeOval(x - size/2, y - size/2, size, size);
+    }
+
+    private static void drawMawashi(GraphicsContext gc, double x, double y, double size) {
+        // Толстый пояс сумоиста
+        gc.setStroke(GameRenderer.SHADOW_COLOR);
+        gc.setLineWidth(size * 0.08);
+        gc.setLineCap(javafx.scene.shape.StrokeLineCap.ROUND);
+
+        // Верхняя часть пояса
+        gc.strokeLine(x - size * 0.4, y - size * 0.1, x + size * 0.4, y - size * 0.1);
+        // Нижняя часть пояса
+        gc.strokeLine(x - size * 0.4, y + size * 0.1, x + size * 0.4, y + size * 0.1);
+    }
+
+    private static void drawArms(GraphicsContext gc, double x, double y, double bodySize, double armSize,
+                                 Color color, Color darkColor, boolean flat) {
+        // Левая рука (шарик слева)
+        double leftX = x - bodySize * 0.45;
+        drawBall(gc, leftX, y, armSize, color, darkColor, flat);
+
+        // Правая рука (шарик справа)
+        double rightX = x + bodySize * 0.45;
+        drawBall(gc, rightX, y, armSize, color, darkColor, flat);
+    }
+
+    private static void drawLegs(GraphicsContext gc, double x, double y, double bodySize, double legSize,
+                                 Color color, Color darkColor, boolean flat) {
+        // Левая нога (шарик слева снизу)
+        double leftX = x - bodySize * 0.35;
+        double leftY = y + bodySize * 0.45;
+        drawBall(gc, leftX, leftY, legSize, color, darkColor, flat);
+
+        // Правая нога (шарик справа снизу)
+        double rightX = x + bodySize * 0.35;
+        double rightY = y + bodySize * 0.45;
+        drawBall(gc, rightX, rightY, legSize, color, darkColor, flat);
+    }
+
+    // Рука или нога
+    private static void drawBall(GraphicsContext gc, double x, double y, double size, Color color, Color darkColor,
+                                 boolean flat) {
+        gc.setFill(shade(x, y, size, color, darkColor, 30, flat));
+        gc.fillOval(x - size/2, y - size/2, size, size);
+
+        gc.setStroke(darkColor);
+        gc.setLineWidth(2);
+        gc.strokeOval(x - size/2, y - size/2, size, size);
+    }
+
+    private static void drawHead(GraphicsContext gc, double x, double y, double size, Color baseColor, Color darkColor,
+                                 boolean flat) {
+        // Градиент для головы
+        gc.setFill(shade(x, y, size, baseColor, darkColor, 30, flat));
+        gc.fillOval(x - size/2, y - size/2, size, size);
+
+        // Контур головы
+        gc.setStroke(darkColor);
+        gc.setLineWidth(3);
+        gc.strokeOval(x - size/2, y - size/2, size, size);
+    }
+
+    private static void drawFace(GraphicsContext gc, double x, double y, double size) {
+        // Глаза
+        double eyeY = y + size * 0.1;
+        double eyeSize = size * 0.12;
+
+        gc.setFill(Color.BLACK);
+        gc.fillOval(x - size * 0.25 - eyeSize/2, eyeY - eyeSize/2, eyeSize, eyeSize);
+        gc.fillOval(x + size * 0.25 - eyeSize/2, eyeY - eyeSize/2, eyeSize, eyeSize);
+
+        // Рот
+        double mouthWidth = size * 0.4;
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(size * 0.02);
+        gc.strokeLine(x - mouthWidth/2, y + size * 0.2, x + mouthWidth/2, y + size * 0.2);
+    }
+
+    private static void drawAbilityIndicator(GraphicsContext gc, double x, double y, Variant variant) {
+        double size = INDICATOR_SIZE;
+
+        if (variant == Variant.ACTIVE) {
+            // Активная способность
+            gc.setFill(GameRenderer.ACCENT_COLOR);
+            gc.setGlobalAlpha(0.6);
+            gc.fillOval(x - size, y - size, size * 2, size * 2);
+            gc.setGlobalAlpha(1.0);
+
+            gc.setFill(Color.WHITE);
+            gc.fillOval(x - size/2, y - size/2, size, size);
+
+            gc.setFill(GameRenderer.ACCENT_COLOR);
+            gc.setFont(Font.font("Arial", FontWeight.BOLD, size * 0.7));
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.fillText("⚡", x, y + size * 0.3);
+        } else {
+            // Доступная способность
+            gc.setFill(GameRenderer.HIGHLIGHT_COLOR);
+            gc.fillOval(x - size/2, y - size/2, size, size);
+
+            gc.setFill(GameRenderer.ACCENT_COLOR);
+            gc.setFont(Font.font("Arial", FontWeight.BOLD, size * 0.8));
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.fillText("✓", x, y + size * 0.3);
+        }
+    }
+
+    private static void drawPlayerInfo(GraphicsContext gc, double x, double y, int playerId) {
+        // Фон для информации
+        gc.setFill(Color.rgb(255, 255, 255, 0.8));
+        gc.fillRoundRect(x - 50, y - 15, 100, 30, 10, 10);
+
+        // Рамка
+        gc.setStroke(GameRenderer.ACCENT_COLOR);
+        gc.setLineWidth(2);
+        gc.strokeRoundRect(x - 50, y - 15, 100, 30, 10, 10);
+
+        // Имя и номер
+        gc.setFill(GameRenderer.TEXT_COLOR);
+        gc.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.fillText("Игрок " + playerId, x, y + 5);
+    }
+}
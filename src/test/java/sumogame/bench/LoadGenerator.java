@@ -0,0 +1,277 @@
+package sumogame.bench;
+
+import sumogame.model.CharacterType;
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageCodec;
+import sumogame.network.message.PlayerMove;
+import sumogame.network.service.LatencyEstimator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Нагрузочный клиент для бенчмарков выделенного сервера: много соединений в одном потоке с селектором.
+ * Каждое соединение ведет себя как игрок: после ASSIGN_PLAYER шлет PLAYER_JOIN, дальше PLAYER_MOVE
+ * с заданным интервалом, отвечает на PING, подтверждает снимки и раз в секунду само пингует
+ * сервер - по PONG считается RTT (сервер отвечает из потока сети, так что это задержка транспорта).
+ * Формат сообщений - как у сервера (WireFormat, -Dsumogame.wireFormat).
+ * Не потокобезопасен: все вызовы из одного потока.
+ */
+final class LoadGenerator implements AutoCloseable {
+    private static final String[] DIRECTIONS = {"UP", "RIGHT", "DOWN", "LEFT"};
+    private static final long PING_INTERVAL_MICROS = 1_000_000;
+    private static final int CONNECT_WINDOW = 32;
+
+    private final Selector selector;
+    private final MessageCodec codec = MessageCodec.create();
+    private final List<Client> clients = new ArrayList<>();
+    private final long moveIntervalMicros;
+
+    private long sent;
+    private long received;
+    private long[] rtts = new long[1 << 16];
+    private int rttCount;
+    private int disconnected;
+
+    LoadGenerator(long moveIntervalMillis) throws IOException {
+        this.selector = Selector.open();
+        this.moveIntervalMicros = moveIntervalMillis * 1000;
+    }
+
+    // Открывает count соединений; возвращает, сколько из них сервер принял за timeoutMillis.
+    // Принятым считается соединение, получившее ASSIGN_PLAYER. Непринятых одновременно не больше
+    // CONNECT_WINDOW: при переполненной очереди приема (backlog 50) ядро молча теряет ACK клиента,
+    // клиент считает соединение установленным, а сервер узнает о нем только после повторов SYN-ACK
+    // с растущей паузой - такие соединения подключались бы минутами.
+    int connect(InetSocketAddress address, int count, long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int opened = 0;
+        while (System.currentTimeMillis() < deadline) {
+            int accepted = connectedCount();
+            if (accepted + disconnected >= count) break;
+            while (opened < count && opened - accepted - disconnected < CONNECT_WINDOW) {
+                open(address);
+                opened++;
+            }
+            poll(5);
+        }
+        return connectedCount();
+    }
+
+    private void open(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Client client = new Client(channel, clients.size());
+        clients.add(client);
+        channel.connect(address);
+        channel.register(selector, SelectionKey.OP_CONNECT, client);
+    }
+
+    // Гоняет нагрузку durationMillis миллисекунд
+    void run(long durationMillis) throws IOException {
+        long end = System.currentTimeMillis() + durationMillis;
+        while (System.currentTimeMillis() < end) {
+            poll(5);
+        }
+    }
+
+    void resetStats() {
+        sent = 0;
+        received = 0;
+        rttCount = 0;
+    }
+
+    long getSent() { return sent; }
+    long getReceived() { return received; }
+    int getDisconnected() { return disconnected; }
+
+    int connectedCount() {
+        int count = 0;
+        for (Client client : clients) {
+            if (client.connected && client.playerId != 0) count++;
+        }
+        return count;
+    }
+
+    // Перцентиль RTT в мкс, -1 - замеров нет
+    long rttPercentile(double percentile) {
+        if (rttCount == 0) return -1;
+        long[] sorted = Arrays.copyOf(rtts, rttCount);
+        Arrays.sort(sorted);
+        return sorted[Math.min(rttCount - 1, (int) (rttCount * percentile))];
+    }
+
+    private void poll(long timeoutMillis) throws IOException {
+        selector.select(timeoutMillis);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isConnectable() && client.channel.finishConnect()) {
+                    client.connected = true;
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(client);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    client.write(key);
+                }
+            } catch (IOException e) {
+                client.drop(key);
+            }
+        }
+
+        long now = LatencyEstimator.nowMicros();
+        for (Client client : clients) {
+            if (client.playerId != 0 && client.connected) {
+                try {
+                    client.tick(now);
+                } catch (IOException e) {
+                    // сервер закрыл соединение, пока мы ему писали
+                    client.drop(client.channel.keyFor(selector));
+                }
+            }
+        }
+    }
+
+    private void read(Client client) throws IOException {
+        int count = client.channel.read(client.input);
+        if (count < 0) {
+            client.drop(client.channel.keyFor(selector));
+            return;
+        }
+        client.input.flip();
+        Message message;
+        while ((message = codec.decode(client.input)) != null) {
+            received++;
+            client.handle(message);
+        }
+        client.input.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Client client : clients) {
+            client.channel.close();
+        }
+        selector.close();
+    }
+
+    private final class Client {
+        final SocketChannel channel;
+        final int index;
+        final ByteBuffer input = ByteBuffer.allocate(16 * 1024);
+        ByteBuffer output = ByteBuffer.allocate(1024);
+        boolean connected;
+        int playerId;
+        long nextMove;
+        long nextPing;
+        int direction;
+        int moveSequence;
+
+        Client(SocketChannel channel, int index) {
+            this.channel = channel;
+            this.index = index;
+        }
+
+        void handle(Message message) throws IOException {
+            switch (message.getType()) {
+                case ASSIGN_PLAYER:
+                    playerId = Integer.parseInt(message.getData());
+                    CharacterType[] types = CharacterType.values();
+                    send(new Message(Message.Type.PLAYER_JOIN, types[index % types.length].name(), playerId));
+                    // соединения пингуют и ходят вразнобой, а не все в один момент
+                    long now = LatencyEstimator.nowMicros();
+                    nextMove = now + index % Math.max(1, moveIntervalMicros);
+                    nextPing = now + index * 997L % PING_INTERVAL_MICROS;
+                    break;
+                case PING:
+                    send(LatencyEstimator.createPong(message, playerId));
+                    break;
+                case PONG:
+                    String data = message.getData();
+                    long rtt = LatencyEstimator.nowMicros() - Long.parseLong(data.substring(0, data.indexOf(';')));
+                    if (rttCount == rtts.length) {
+                        rtts = Arrays.copyOf(rtts, rtts.length * 2);
+                    }
+                    rtts[rttCount++] = rtt;
+                    break;
+                case STATE_SNAPSHOT:
+                    send(new Message(Message.Type.SNAPSHOT_ACK, String.valueOf(snapshotTick(message.getPayload())), playerId));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void tick(long now) throws IOException {
+            if (now >= nextMove) {
+                nextMove += moveIntervalMicros;
+                direction = (direction + 1) % DIRECTIONS.length;
+                send(PlayerMove.create(DIRECTIONS[direction], ++moveSequence, playerId));
+            }
+            if (now >= nextPing) {
+                nextPing += PING_INTERVAL_MICROS;
+                send(LatencyEstimator.createPing(playerId));
+            }
+        }
+
+        void send(Message message) throws IOException {
+            while (codec.encode(message, output) < 0) {
+                ByteBuffer bigger = ByteBuffer.allocate(output.capacity() * 2);
+                output.flip();
+                bigger.put(output);
+                output = bigger;
+            }
+            sent++;
+            write(channel.keyFor(selector));
+        }
+
+        void write(SelectionKey key) throws IOException {
+            output.flip();
+            channel.write(output);
+            output.compact();
+            key.interestOps(output.position() > 0
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+
+        void drop(SelectionKey key) {
+            if (!channel.isOpen()) return;
+            disconnected++;
+            connected = false;
+            playerId = 0;
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // игнорирую ошибки закрытия
+            }
+        }
+    }
+
+    // Тик снимка - первый varint пакета SnapshotCodec
+    private static long snapshotTick(byte[] payload) {
+        long value = 0;
+        for (int i = 0, shift = 0; i < payload.length && shift < 64; i++, shift += 7) {
+            value |= (long) (payload[i] & 0x7F) << shift;
+            if ((payload[i] & 0x80) == 0) break;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,280 @@
+package sumogame.bench;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.TilePane;
+import javafx.stage.Stage;
+import sumogame.engine.GameEngine;
+import sumogame.engine.GameEventListener;
+import sumogame.model.CharacterType;
+import sumogame.model.GameConfig;
+import sumogame.view.GameRenderer;
+import sumogame.view.MatchRenderer;
+import sumogame.view.RendererBackend;
+import sumogame.view.SceneGraphRenderer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * CANVAS (GameRenderer) против SCENE (SceneGraphRenderer) при 2, 16 и 64 игроках на экране.
+ * В матче ровно два игрока, поэтому N игроков - это N/2 полей матчей, уложенных сеткой в одно окно
+ * 900x480 (как поле на игровом экране): пикселей на экране столько же, растет число фигур.
+ * Каждое поле крутит свой движок без сети, игроки держат случайные направления, тик на кадр.
+ * Выводит кадры в секунду, время вызовов render() в потоке FX и процессорное время процесса
+ * на кадр (вместе с растеризацией в потоке рендеринга JavaFX).
+ * Качество Canvas закреплено на FULL, чтобы регулятор не подменял нагрузку (-Dsumogame.quality).
+ *
+ * Без дисплея запускается на Monocle (openjfx-monocle в зависимостях тестов, нужен JDK 21+)
+ * с программной растеризацией. Текст JavaFX на Linux рисует через pango (libpango, libpangoft2) -
+ * без них надписи не выводятся, а SceneGraphRenderer не создается.
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw \
+ *      -cp target/classes:target/test-classes:$(cat cp.txt) sumogame.bench.RendererBenchmark
+ *      [--seconds 10] [--players 2,16,64] [--backends canvas,scene]
+ */
+public class RendererBenchmark {
+    private static final double SCREEN_WIDTH = 900;
+    private static final double SCREEN_HEIGHT = 480;
+    private static final long WARMUP_MILLIS = 3000;
+    private static final String[] DIRECTIONS = {"UP", "RIGHT", "DOWN", "LEFT"};
+
+    public static void main(String[] args) throws Exception {
+        long seconds = 10;
+        int[] playerCounts = {2, 16, 64};
+        RendererBackend[] backends = RendererBackend.values();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "--players":
+                    String[] counts = args[++i].split(",");
+                    playerCounts = new int[counts.length];
+                    for (int j = 0; j < counts.length; j++) {
+                        playerCounts[j] = Integer.parseInt(counts[j].trim());
+                    }
+                    break;
+                case "--backends":
+                    String[] names = args[++i].split(",");
+                    backends = new RendererBackend[names.length];
+                    for (int j = 0; j < names.length; j++) {
+                        backends[j] = RendererBackend.valueOf(names[j].trim().toUpperCase());
+                    }
+                    break;
+                default:
+                    System.err.println("Неизвестный параметр: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (System.getProperty("sumogame.quality") == null) {
+            System.setProperty("sumogame.quality", "full");
+        }
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+
+        System.out.println("Ядер: " + Runtime.getRuntime().availableProcessors() + ", конвейер "
+                + System.getProperty("prism.order", "по умолчанию") + ", платформа "
+                + System.getProperty("glass.platform", "по умолчанию") + ", замер " + seconds + " с");
+        List<Result> results = new ArrayList<>();
+        for (int players : playerCounts) {
+            for (RendererBackend backend : backends) {
+                Result result = measure(backend, players, seconds * 1000);
+                System.out.println(result);
+                results.add(result);
+            }
+        }
+
+        System.out.println();
+        System.out.println(Result.header());
+        for (Result result : results) {
+            System.out.println(result);
+        }
+        Platform.exit();
+    }
+
+    private static Result measure(RendererBackend backend, int players, long measureMillis) throws Exception {
+        Run run = onFxThread(() -> new Run(backend, players));
+        Thread.sleep(WARMUP_MILLIS);
+        onFxThread(() -> {
+            run.resetStats();
+            return null;
+        });
+        Thread.sleep(measureMillis);
+        return onFxThread(run::finish);
+    }
+
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future.get();
+    }
+
+    // Окно с полями матчей; все поля обновляются и рисуются в одном кадре AnimationTimer
+    private static final class Run extends AnimationTimer {
+        final RendererBackend backend;
+        final int players;
+        final Stage stage = new Stage();
+        final List<Field> fields = new ArrayList<>();
+        long frames;
+        long renderNanos;
+        long startNanos;
+        long startCpuNanos;
+
+        Run(RendererBackend backend, int players) {
+            this.backend = backend;
+            this.players = players;
+            int matches = Math.max(1, players / 2);
+            int columns = (int) Math.ceil(Math.sqrt(matches));
+            int rows = (matches + columns - 1) / columns;
+            double width = SCREEN_WIDTH / columns;
+            double height = SCREEN_HEIGHT / rows;
+
+            TilePane grid = new TilePane();
+            grid.setPrefColumns(columns);
+            grid.setPrefTileWidth(width);
+            grid.setPrefTileHeight(height);
+            for (int i = 0; i < matches; i++) {
+                StackPane pane = new StackPane();
+                MatchRenderer renderer;
+                if (backend == RendererBackend.SCENE) {
+                    renderer = new SceneGraphRenderer(pane, width, height);
+                } else {
+                    // как на игровом экране: фон и арена под канвасом игроков
+                    Canvas background = new Canvas(width, height);
+                    Canvas canvas = new Canvas(width, height);
+                    pane.getChildren().addAll(background, canvas);
+                    renderer = new GameRenderer(background, canvas);
+                }
+                renderer.setLocalPlayerId(1);
+                grid.getChildren().add(pane);
+                fields.add(new Field(renderer, i));
+            }
+
+            stage.setScene(new Scene(grid, SCREEN_WIDTH, SCREEN_HEIGHT));
+            stage.show();
+            resetStats();
+            start();
+        }
+
+        @Override
+        public void handle(long now) {
+            for (Field field : fields) {
+                field.tick();
+            }
+            long ticked = System.nanoTime();
+            for (Field field : fields) {
+                field.renderer.render(field.engine.acquireFrame(), false, 0.5);
+            }
+            renderNanos += System.nanoTime() - ticked;
+            frames++;
+        }
+
+        void resetStats() {
+            frames = 0;
+            renderNanos = 0;
+            startNanos = System.nanoTime();
+            startCpuNanos = processCpuNanos();
+        }
+
+        Result finish() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            long cpuNanos = processCpuNanos() - startCpuNanos;
+            stop();
+            stage.close();
+            return new Result(backend, players, frames / seconds,
+                    frames == 0 ? 0 : renderNanos / 1e6 / frames,
+                    frames == 0 ? 0 : cpuNanos / 1e6 / frames);
+        }
+    }
+
+    // Матч одного поля: движок сервера без сети, каждый игрок держит случайное направление 10-40 тиков.
+    // Закончившийся матч начинается заново, иначе поле замрет и Canvas перестанет рисовать
+    private static final class Field {
+        final MatchRenderer renderer;
+        final int index;
+        final Random random;
+        final String[] held = new String[2];
+        final int[] holdTicks = new int[2];
+        GameEngine engine;
+
+        Field(MatchRenderer renderer, int index) {
+            this.renderer = renderer;
+            this.index = index;
+            this.random = new Random(index);
+            startMatch();
+        }
+
+        void startMatch() {
+            CharacterType[] types = CharacterType.values();
+            engine = new GameEngine(0, null, true, GameEventListener.NONE, GameConfig.DEFAULT_TICK_RATE);
+            engine.setPlayerCharacter(1, types[(2 * index) % types.length]);
+            engine.setPlayerCharacter(2, types[(2 * index + 1) % types.length]);
+            engine.startGame();
+        }
+
+        void tick() {
+            if (engine.isMatchFinished()) {
+                startMatch();
+            }
+            engine.beginTick();
+            for (int i = 0; i < 2; i++) {
+                if (--holdTicks[i] <= 0) {
+                    holdTicks[i] = 10 + random.nextInt(31);
+                    held[i] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                }
+                engine.processPlayerInput(i + 1, held[i], (int) engine.getTickNumber());
+            }
+            engine.update(engine.getTickDuration());
+            engine.publishFrame();
+        }
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    static final class Result {
+        final RendererBackend backend;
+        final int players;
+        final double fps;
+        final double renderMillis;
+        final double cpuMillis;
+
+        Result(RendererBackend backend, int players, double fps, double renderMillis, double cpuMillis) {
+            this.backend = backend;
+            this.players = players;
+            this.fps = fps;
+            this.renderMillis = renderMillis;
+            this.cpuMillis = cpuMillis;
+        }
+
+        static String header() {
+            return String.format("%-8s %7s %8s %14s %14s", "способ", "игроков", "кадр/с", "render() мс", "CPU мс/кадр");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %7d %8.1f %14.2f %14.2f", backend, players, fps, renderMillis, cpuMillis);
+        }
+    }
+}
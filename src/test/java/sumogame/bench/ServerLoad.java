@@ -0,0 +1,176 @@
+package sumogame.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Один замер выделенного сервера под нагрузкой: сервер запускается отдельным процессом
+ * (его потоки, память и CPU видны в /proc и не смешиваются с нагрузочным клиентом),
+ * LoadGenerator открывает соединения, после разогрева снимаются счетчики за окно замера.
+ * Только Linux: потоки, RSS и время CPU читаются из /proc/<pid>.
+ */
+final class ServerLoad {
+    private static final long CLOCK_TICKS_PER_SECOND = 100; // USER_HZ
+
+    private final String name;
+    private final String java;
+    private final List<String> serverArgs;
+
+    // java - исполняемый файл JVM сервера (например, JDK 21 для виртуальных потоков)
+    ServerLoad(String name, String java, List<String> serverArgs) {
+        this.name = name;
+        this.java = java;
+        this.serverArgs = serverArgs;
+    }
+
+    static String currentJava() {
+        return ProcessHandle.current().info().command().orElse("java");
+    }
+
+    Result measure(int connections, long moveIntervalMillis, long warmupMillis, long measureMillis)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                "sumogame.server.DedicatedServer", "--port", String.valueOf(port), "--max-rooms", "100000"));
+        command.addAll(serverArgs);
+        Process server = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Thread drain = new Thread(() -> drainOutput(server), "Bench-ServerOutput");
+        drain.setDaemon(true);
+        drain.start();
+
+        try (LoadGenerator generator = new LoadGenerator(moveIntervalMillis)) {
+            waitForPort(port, server);
+            int connected = generator.connect(new InetSocketAddress("localhost", port), connections, Math.max(120_000, connections * 20L));
+            generator.run(warmupMillis);
+
+            generator.resetStats();
+            long cpuStart = cpuTicks(server.pid());
+            long start = System.nanoTime();
+            generator.run(measureMillis);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double cpuSeconds = (cpuTicks(server.pid()) - cpuStart) / (double) CLOCK_TICKS_PER_SECOND;
+
+            return new Result(name, connections, connected, generator.connectedCount(),
+                    generator.getSent() / seconds, generator.getReceived() / seconds, cpuSeconds / seconds,
+                    status(server.pid(), "Threads:"), status(server.pid(), "VmRSS:") / 1024,
+                    generator.rttPercentile(0.5), generator.rttPercentile(0.99));
+        } finally {
+            server.destroy();
+            server.waitFor();
+        }
+    }
+
+    static final class Result {
+        final String name;
+        final int requested;
+        final int connected;
+        final int alive;
+        final double sentPerSecond;
+        final double receivedPerSecond;
+        final double cores;
+        final long threads;
+        final long rssMb;
+        final long rttP50;
+        final long rttP99;
+
+        Result(String name, int requested, int connected, int alive, double sentPerSecond, double receivedPerSecond,
+               double cores, long threads, long rssMb, long rttP50, long rttP99) {
+            this.name = name;
+            this.requested = requested;
+            this.connected = connected;
+            this.alive = alive;
+            this.sentPerSecond = sentPerSecond;
+            this.receivedPerSecond = receivedPerSecond;
+            this.cores = cores;
+            this.threads = threads;
+            this.rssMb = rssMb;
+            this.rttP50 = rttP50;
+            this.rttP99 = rttP99;
+        }
+
+        // Сколько таких соединений выдержало бы одно ядро при той же нагрузке на соединение
+        double connectionsPerCore() {
+            return cores > 0 ? alive / cores : 0;
+        }
+
+        static String header() {
+            return String.format("%-18s %7s %7s %10s %10s %6s %9s %7s %7s %9s %9s",
+                    "режим", "соедин.", "живых", "в сервер/с", "из серв./с", "ядер", "соед/ядро",
+                    "потоков", "RSS МБ", "RTT p50", "RTT p99");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-18s %7d %7d %10.0f %10.0f %6.2f %9.0f %7d %7d %7.2fмс %7.2fмс",
+                    name, connected, alive, sentPerSecond, receivedPerSecond, cores, connectionsPerCore(),
+                    threads, rssMb, rttP50 / 1000.0, rttP99 / 1000.0);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void waitForPort(int port, Process server) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (!server.isAlive()) {
+                throw new IOException("Сервер завершился с кодом " + server.exitValue());
+            }
+            try (Socket probe = new Socket("localhost", port)) {
+                // пробное соединение сервер посадит ждать пару; оно сразу закрывается
+            } catch (IOException e) {
+                Thread.sleep(100);
+                continue;
+            }
+            // пока сервер не заметил закрытие пробы, он поставил бы ее в пару первому игроку
+            Thread.sleep(500);
+            return;
+        }
+        throw new IOException("Сервер не открыл порт " + port);
+    }
+
+    // Вывод сервера читается, чтобы он не встал на заполненном канале; ошибки показываем
+    private static void drainOutput(Process server) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains("Ошибка") || line.contains("Exception") || line.contains("Error")) {
+                    System.err.println("[сервер] " + line);
+                }
+            }
+        } catch (IOException e) {
+            // процесс сервера завершен
+        }
+    }
+
+    // utime + stime процесса, в тиках USER_HZ
+    private static long cpuTicks(long pid) throws IOException {
+        String stat = Files.readString(Path.of("/proc/" + pid + "/stat"));
+        // имя процесса в скобках может содержать пробелы, поля считаем после него
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    }
+
+    // Числовое поле /proc/<pid>/status (Threads - штук, VmRSS - кБ)
+    private static long status(long pid, String field) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+            if (line.startsWith(field)) {
+                return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,179 @@
+package sumogame.bench;
+
+import sumogame.engine.GameEngine;
+import sumogame.engine.GameEventListener;
+import sumogame.model.CharacterType;
+import sumogame.model.GameConfig;
+import sumogame.model.GameSnapshot;
+import sumogame.network.message.SnapshotCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Размер и скорость SnapshotCodec на снимках настоящего матча.
+ * Движок сервера крутится без сети, игроки держат случайные направления; снимки берутся
+ * с частотой --snapshot-rate и кодируются тремя способами:
+ * текстом (прежний формат STATE_SNAPSHOT - все поля через ';'), полным квантованным снимком
+ * и дельтой от снимка, подтверждение которого приходит через --ack-delay тиков.
+ * Выводит байты на снимок и на клиента в секунду, время encode и decode.
+ *
+ * Запуск (после mvn test-compile):
+ * java -cp target/classes:target/test-classes:gson.jar sumogame.bench.SnapshotCodecBenchmark
+ *      [--seconds 60] [--snapshot-rate 20] [--ack-delay 6]
+ */
+public class SnapshotCodecBenchmark {
+    private static final String[] DIRECTIONS = {"UP", "RIGHT", "DOWN", "LEFT"};
+    private static final int TIMING_ROUNDS = 50;
+
+    public static void main(String[] args) {
+        int seconds = 60;
+        int snapshotRate = GameConfig.DEFAULT_SNAPSHOT_RATE;
+        int ackDelay = 6; // 100 мс RTT при 60 тиках/с
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--snapshot-rate":
+                    snapshotRate = Integer.parseInt(args[++i]);
+                    break;
+                case "--ack-delay":
+                    ackDelay = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Неизвестный параметр: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        int tickRate = GameConfig.DEFAULT_TICK_RATE;
+        int interval = GameSnapshot.intervalTicks(tickRate, snapshotRate);
+        List<GameSnapshot> snapshots = playMatch(tickRate, interval, seconds);
+        System.out.println("Снимков: " + snapshots.size() + " (" + tickRate + " тиков/с, снимок раз в "
+                + interval + " тиков, подтверждение через " + ackDelay + " тиков)");
+
+        long textBytes = 0;
+        for (GameSnapshot snapshot : snapshots) {
+            textBytes += toText(snapshot).getBytes(StandardCharsets.UTF_8).length;
+        }
+        long fullBytes = encodeAll(snapshots, -1).bytes;
+        long deltaBytes = encodeAll(snapshots, ackDelay).bytes;
+
+        // разогрев, затем замер
+        for (int i = 0; i < TIMING_ROUNDS; i++) {
+            encodeAll(snapshots, ackDelay);
+        }
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < TIMING_ROUNDS; i++) {
+            Run run = encodeAll(snapshots, ackDelay);
+            encodeNanos += run.encodeNanos;
+            decodeNanos += run.decodeNanos;
+        }
+        long operations = (long) snapshots.size() * TIMING_ROUNDS;
+
+        double perSecond = tickRate / (double) interval;
+        System.out.println(String.format("%-22s %10s %14s", "формат", "байт/снимок", "байт/клиент/с"));
+        print("текст (прежний)", textBytes, snapshots.size(), perSecond);
+        print("полный квантованный", fullBytes, snapshots.size(), perSecond);
+        print("дельта", deltaBytes, snapshots.size(), perSecond);
+        System.out.println(String.format("Сжатие дельтой относительно текста: %.1fx", textBytes / (double) deltaBytes));
+        System.out.println(String.format("encode %.0f нс/снимок, decode %.0f нс/снимок",
+                encodeNanos / (double) operations, decodeNanos / (double) operations));
+    }
+
+    // Матч на движке сервера: каждый игрок держит случайное направление 10-40 тиков
+    // (пока клавиша зажата, PLAYER_MOVE приходит каждый тик), снимок каждые interval тиков
+    private static List<GameSnapshot> playMatch(int tickRate, int interval, int seconds) {
+        GameEngine engine = new GameEngine(0, null, true, GameEventListener.NONE, tickRate);
+        engine.setPlayerCharacter(1, CharacterType.values()[0]);
+        engine.setPlayerCharacter(2, CharacterType.values()[1 % CharacterType.values().length]);
+        engine.startGame();
+
+        Random random = new Random(42);
+        String[] held = new String[2];
+        int[] holdTicks = new int[2];
+        List<GameSnapshot> snapshots = new ArrayList<>();
+        for (int tick = 0; tick < tickRate * seconds; tick++) {
+            engine.beginTick();
+            for (int i = 0; i < 2; i++) {
+                if (--holdTicks[i] <= 0) {
+                    holdTicks[i] = 10 + random.nextInt(31);
+                    held[i] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                }
+                engine.processPlayerInput(i + 1, held[i], tick + 1);
+            }
+            engine.update(engine.getTickDuration());
+            if (engine.getTickNumber() % interval == 0) {
+                snapshots.add(engine.captureSnapshot());
+            }
+        }
+        return snapshots;
+    }
+
+    private static final class Run {
+        long bytes;
+        long encodeNanos;
+        long decodeNanos;
+    }
+
+    // ackDelay < 0 - подтверждений нет, каждый снимок уходит полным
+    private static Run encodeAll(List<GameSnapshot> snapshots, int ackDelay) {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        List<Long> pendingAcks = new ArrayList<>();
+        Run run = new Run();
+        for (GameSnapshot snapshot : snapshots) {
+            long tick = snapshot.getTick();
+            while (!pendingAcks.isEmpty() && pendingAcks.get(0) + ackDelay <= tick) {
+                server.acknowledge(pendingAcks.remove(0));
+            }
+
+            long start = System.nanoTime();
+            byte[] payload = server.encode(snapshot);
+            long encoded = System.nanoTime();
+            client.decode(payload);
+            run.decodeNanos += System.nanoTime() - encoded;
+            run.encodeNanos += encoded - start;
+            run.bytes += payload.length;
+
+            if (ackDelay >= 0) {
+                pendingAcks.add(tick);
+            }
+        }
+        return run;
+    }
+
+    // Прежний текстовый формат STATE_SNAPSHOT
+    private static String toText(GameSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(snapshot.getTick()).append(';')
+                .append(snapshot.getRoundNumber()).append(';')
+                .append(snapshot.getPlayer1Score()).append(';')
+                .append(snapshot.getPlayer2Score()).append(';')
+                .append(snapshot.getRoundTime()).append(';')
+                .append(snapshot.isGameActive() ? 1 : 0).append(';')
+                .append(snapshot.isMatchFinished() ? 1 : 0).append(';')
+                .append(snapshot.getArenaType().ordinal());
+        for (GameSnapshot.PlayerState player : new GameSnapshot.PlayerState[] {snapshot.getPlayer1(), snapshot.getPlayer2()}) {
+            sb.append(';').append(player.getX())
+                    .append(';').append(player.getY())
+                    .append(';').append(player.getSize())
+                    .append(';').append(player.getSpeed())
+                    .append(';').append(player.getStrength())
+                    .append(';').append(player.getPowerUpTimer())
+                    .append(';').append(player.isPowerUpAvailable() ? 1 : 0)
+                    .append(';').append(player.isPowerUpActive() ? 1 : 0);
+        }
+        return sb.toString();
+    }
+
+    private static void print(String name, long bytes, int snapshots, double perSecond) {
+        double perSnapshot = bytes / (double) snapshots;
+        System.out.println(String.format("%-22s %10.1f %14.0f", name, perSnapshot, perSnapshot * perSecond));
+    }
+}
@@ -0,0 +1,69 @@
+package sumogame.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение транспортов выделенного сервера: blocking (поток на соединение) и nio (селекторы).
+ * Для каждого числа соединений сервер запускается заново, клиенты играют парами
+ * (движение раз в --move-interval мс, PING раз в секунду, подтверждение снимков).
+ * Выводит сообщения в секунду в обе стороны, загрузку CPU сервера и соединения на ядро.
+ *
+ * Запуск (после mvn test-compile):
+ * java -cp target/classes:target/test-classes:gson.jar sumogame.bench.TransportBenchmark
+ *      [--connections 500,2000] [--seconds 15] [--move-interval 50] [--io-threads 1]
+ */
+public class TransportBenchmark {
+    public static void main(String[] args) throws Exception {
+        int[] connectionCounts = {500, 2000};
+        long seconds = 15;
+        long moveInterval = 50;
+        String ioThreads = String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connections":
+                    String[] parts = args[++i].split(",");
+                    connectionCounts = new int[parts.length];
+                    for (int j = 0; j < parts.length; j++) {
+                        connectionCounts[j] = Integer.parseInt(parts[j].trim());
+                    }
+                    break;
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "--move-interval":
+                    moveInterval = Long.parseLong(args[++i]);
+                    break;
+                case "--io-threads":
+                    ioThreads = args[++i];
+                    break;
+                default:
+                    System.err.println("Неизвестный параметр: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.println("Ядер: " + Runtime.getRuntime().availableProcessors()
+                + ", движение раз в " + moveInterval + " мс, замер " + seconds + " с");
+        List<ServerLoad.Result> results = new ArrayList<>();
+        for (int connections : connectionCounts) {
+            for (String transport : new String[] {"blocking", "nio"}) {
+                List<String> serverArgs = new ArrayList<>(List.of("--transport", transport));
+                if (transport.equals("nio")) {
+                    serverArgs.addAll(List.of("--io-threads", ioThreads));
+                }
+                ServerLoad load = new ServerLoad(transport, ServerLoad.currentJava(), serverArgs);
+                ServerLoad.Result result = load.measure(connections, moveInterval, 5_000, seconds * 1000);
+                System.out.println(result);
+                results.add(result);
+            }
+        }
+
+        System.out.println();
+        System.out.println(ServerLoad.Result.header());
+        for (ServerLoad.Result result : results) {
+            System.out.println(result);
+        }
+    }
+}
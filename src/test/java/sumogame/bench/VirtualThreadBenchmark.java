@@ -0,0 +1,66 @@
+package sumogame.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Блокирующий транспорт на платформенных и на виртуальных потоках при большом числе соединений
+ * (по умолчанию 10 000): потоки ОС, RSS и RTT PING/PONG сервера.
+ * На соединение приходится два потока (чтение и запись), поэтому платформенных - около 20 000:
+ * нужны ulimit -n и -u с запасом и threads-max ядра.
+ * Нагрузка на соединение меньше, чем в TransportBenchmark (движение раз в секунду) -
+ * здесь меряется цена самих соединений, а не пропускная способность.
+ *
+ * Сервер должен работать на JDK 21+ (--server-java), иначе --virtual-threads откатится
+ * на обычные потоки. Запуск (после mvn test-compile):
+ * java -cp target/classes:target/test-classes:gson.jar sumogame.bench.VirtualThreadBenchmark
+ *      [--server-java /path/to/jdk21/bin/java] [--connections 10000] [--seconds 20] [--move-interval 1000]
+ */
+public class VirtualThreadBenchmark {
+    public static void main(String[] args) throws Exception {
+        String serverJava = ServerLoad.currentJava();
+        int connections = 10_000;
+        long seconds = 20;
+        long moveInterval = 1000;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--server-java":
+                    serverJava = args[++i];
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "--move-interval":
+                    moveInterval = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Неизвестный параметр: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.println("Ядер: " + Runtime.getRuntime().availableProcessors() + ", соединений " + connections
+                + ", движение раз в " + moveInterval + " мс, замер " + seconds + " с, JVM сервера " + serverJava);
+        List<ServerLoad.Result> results = new ArrayList<>();
+        String[][] modes = {
+                {"platform", "--transport", "blocking"},
+                {"virtual", "--transport", "blocking", "--virtual-threads"},
+        };
+        for (String[] mode : modes) {
+            ServerLoad load = new ServerLoad(mode[0], serverJava, List.of(mode).subList(1, mode.length));
+            ServerLoad.Result result = load.measure(connections, moveInterval, 5_000, seconds * 1000);
+            System.out.println(result);
+            results.add(result);
+        }
+
+        System.out.println();
+        System.out.println(ServerLoad.Result.header());
+        for (ServerLoad.Result result : results) {
+            System.out.println(result);
+        }
+    }
+}
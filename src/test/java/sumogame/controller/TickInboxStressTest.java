@@ -0,0 +1,125 @@
+package sumogame.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import sumogame.model.GameSnapshot;
+import sumogame.network.message.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Входящие тика под нагрузкой: несколько потоков сети пишут, один поток тика разбирает
+class TickInboxStressTest {
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 50_000;
+    private static final int SNAPSHOTS = 20_000;
+
+    @Test
+    void snapshotGoesBeforeMessagesOfTheSameTick() {
+        TickInbox inbox = new TickInbox();
+        List<String> applied = new ArrayList<>();
+        inbox.add(new Message(Message.Type.ROUND_RESULT, "1", 1));
+        inbox.setSnapshot(snapshot(7));
+        inbox.setSnapshot(snapshot(8));
+        inbox.add(new Message(Message.Type.POWER_UP, "ACTIVATE", 2));
+
+        int count = inbox.drain(snapshot -> applied.add("snapshot " + snapshot.getTick()),
+                message -> applied.add(message.getType().name()));
+
+        assertEquals(2, count);
+        assertEquals(List.of("snapshot 8", "ROUND_RESULT", "POWER_UP"), applied);
+        assertEquals(0, inbox.drain(snapshot -> applied.add("лишний снимок"), message -> applied.add("лишнее")));
+        assertEquals(3, applied.size());
+    }
+
+    @Test
+    @Timeout(60)
+    void concurrentProducersSingleTickConsumer() throws Exception {
+        TickInbox inbox = new TickInbox();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger(PRODUCERS + 1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                    inbox.add(new Message(Message.Type.PLAYER_MOVE, producer + ";" + i, 1 + producer % 2));
+                }
+                running.decrementAndGet();
+            }, "Producer-" + p));
+        }
+        threads.add(new Thread(() -> {
+            await(start);
+            for (int tick = 1; tick <= SNAPSHOTS; tick++) {
+                inbox.setSnapshot(snapshot(tick));
+            }
+            running.decrementAndGet();
+        }, "Snapshots"));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        // поток теста - поток тика: разбирает, пока пишущие не закончат, и еще раз после
+        int[] nextIndex = new int[PRODUCERS];
+        long[] lastTick = {0};
+        int[] snapshotsApplied = {0};
+        int total = 0;
+        int drains = 0;
+        start.countDown();
+        boolean producersDone;
+        do {
+            producersDone = running.get() == 0;
+            total += inbox.drain(snapshot -> {
+                assertTrue(snapshot.getTick() > lastTick[0],
+                        "снимок " + snapshot.getTick() + " после " + lastTick[0]);
+                lastTick[0] = snapshot.getTick();
+                snapshotsApplied[0]++;
+            }, message -> {
+                String[] fields = message.getData().split(";");
+                int producer = Integer.parseInt(fields[0]);
+                // у каждого производителя свой порядок сохраняется
+                assertEquals(nextIndex[producer], Integer.parseInt(fields[1]), "производитель " + producer);
+                nextIndex[producer]++;
+            });
+            drains++;
+        } while (!producersDone);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, total);
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(MESSAGES_PER_PRODUCER, nextIndex[p]);
+        }
+        // промежуточные снимки могли замениться более новыми, последний доходит всегда
+        assertEquals(SNAPSHOTS, lastTick[0]);
+        assertTrue(snapshotsApplied[0] <= drains);
+
+        inbox.add(new Message(Message.Type.ROUND_RESULT, "2", 1));
+        inbox.setSnapshot(snapshot(SNAPSHOTS + 1));
+        inbox.clear();
+        GameSnapshot[] afterClear = {null};
+        assertEquals(0, inbox.drain(snapshot -> afterClear[0] = snapshot, message -> { }));
+        assertNull(afterClear[0]);
+    }
+
+    private static GameSnapshot snapshot(long tick) {
+        return new GameSnapshot(tick, 1, 0, 0, 60, true, false, null, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
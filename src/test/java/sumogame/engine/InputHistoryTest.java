@@ -0,0 +1,95 @@
+package sumogame.engine;
+
+import org.junit.jupiter.api.Test;
+import sumogame.model.Direction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InputHistoryTest {
+
+    @Test
+    void keepsUnacknowledgedInputInOrder() {
+        InputHistory history = new InputHistory(8);
+        history.add(1, Direction.UP);
+        history.add(2, Direction.LEFT);
+        history.add(3, Direction.DOWN);
+
+        history.discardUpTo(1);
+
+        assertEquals(2, history.size());
+        assertEquals(Direction.LEFT, history.get(0));
+        assertEquals(Direction.DOWN, history.get(1));
+    }
+
+    @Test
+    void discardAcrossWrapAround() {
+        InputHistory history = new InputHistory(4);
+        for (int sequence = 1; sequence <= 6; sequence++) {
+            history.add(sequence, direction(sequence));
+            history.discardUpTo(sequence - 2);
+        }
+
+        assertEquals(2, history.size());
+        assertEquals(direction(5), history.get(0));
+        assertEquals(direction(6), history.get(1));
+
+        history.discardUpTo(6);
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    void overflowDropsOldestEntries() {
+        InputHistory history = new InputHistory(4);
+        for (int sequence = 1; sequence <= 10; sequence++) {
+            history.add(sequence, direction(sequence));
+        }
+
+        assertEquals(4, history.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(direction(7 + i), history.get(i));
+        }
+
+        // подтверждение уже затертого ввода ничего лишнего не отбрасывает
+        history.discardUpTo(5);
+        assertEquals(4, history.size());
+        history.discardUpTo(8);
+        assertEquals(2, history.size());
+        assertEquals(direction(9), history.get(0));
+    }
+
+    @Test
+    void staleAcknowledgementKeepsEverything() {
+        InputHistory history = new InputHistory(4);
+        history.add(5, Direction.RIGHT);
+        history.add(6, Direction.UP);
+
+        history.discardUpTo(4);
+
+        assertEquals(2, history.size());
+        assertEquals(Direction.RIGHT, history.get(0));
+    }
+
+    @Test
+    void gapInSequenceNumbers() {
+        InputHistory history = new InputHistory(8);
+        history.add(1, Direction.UP);
+        history.add(2, Direction.LEFT);
+        history.add(5, Direction.DOWN);
+        history.add(6, Direction.RIGHT);
+
+        // подтвержден номер из пропуска: все, что до него, уже применено
+        history.discardUpTo(4);
+
+        assertEquals(2, history.size());
+        assertEquals(Direction.DOWN, history.get(0));
+        assertEquals(Direction.RIGHT, history.get(1));
+
+        history.discardUpTo(5);
+        assertEquals(1, history.size());
+        assertEquals(Direction.RIGHT, history.get(0));
+    }
+
+    private static Direction direction(int sequence) {
+        return Direction.values()[sequence % Direction.values().length];
+    }
+}
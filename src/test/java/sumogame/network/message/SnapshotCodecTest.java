@@ -0,0 +1,161 @@
+package sumogame.network.message;
+
+import org.junit.jupiter.api.Test;
+import sumogame.model.ArenaType;
+import sumogame.model.GameSnapshot;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotCodecTest {
+    // шаг квантования позиции: (800 * 2) / 0xFFFF
+    private static final double POSITION_EPSILON = 0.03;
+    private static final double FIXED_EPSILON = 1 / 256.0;
+
+    @Test
+    void fullSnapshotRoundTrip() {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        GameSnapshot snapshot = snapshot(7);
+
+        byte[] payload = server.encode(snapshot);
+
+        assertEquals(0, baselineOffset(payload));
+        assertSnapshot(snapshot, client.decode(payload));
+    }
+
+    @Test
+    void deltaAgainstAcknowledgedSnapshotIsSmaller() {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        byte[] full = server.encode(snapshot(1));
+        client.decode(full);
+        server.acknowledge(1);
+
+        GameSnapshot next = snapshot(2);
+        byte[] delta = server.encode(next);
+
+        assertEquals(1, baselineOffset(delta));
+        assertTrue(delta.length < full.length, delta.length + " >= " + full.length);
+        assertSnapshot(next, client.decode(delta));
+    }
+
+    @Test
+    void laggingAcknowledgements() {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        // подтверждение доходит до сервера через 5 тиков после снимка
+        for (long tick = 1; tick <= 200; tick++) {
+            if (tick > 5) {
+                server.acknowledge(tick - 5);
+            }
+            GameSnapshot snapshot = snapshot(tick);
+            byte[] payload = server.encode(snapshot);
+            if (tick > 5) {
+                assertEquals(5, baselineOffset(payload));
+            }
+            assertSnapshot(snapshot, client.decode(payload));
+        }
+    }
+
+    @Test
+    void lostAcknowledgementsFallBackToFullSnapshot() {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        // снимок раз в 3 тика, подтвердился только тик 3: старая база переживает HISTORY тиков
+        for (long tick = 3; tick <= 120; tick += 3) {
+            GameSnapshot snapshot = snapshot(tick);
+            byte[] payload = server.encode(snapshot);
+            long offset = baselineOffset(payload);
+            assertTrue(offset == 0 || offset == tick - 3, "тик " + tick + ", смещение " + offset);
+            assertTrue(tick - 3 < 32 || offset == 0, "тик " + tick + ", смещение " + offset);
+            assertSnapshot(snapshot, client.decode(payload));
+            if (tick == 3) {
+                server.acknowledge(3);
+            }
+        }
+    }
+
+    @Test
+    void lostPacketsAreNeverUsedAsBaseline() {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        for (long tick = 1; tick <= 300; tick++) {
+            GameSnapshot snapshot = snapshot(tick);
+            byte[] payload = server.encode(snapshot);
+            // теряется каждый третий пакет, а подтверждения доходят только на каждый седьмой тик
+            if (tick % 3 == 0) continue;
+            assertSnapshot(snapshot, client.decode(payload));
+            if (tick % 7 == 0) {
+                server.acknowledge(tick);
+            }
+        }
+    }
+
+    @Test
+    void acknowledgementExactlyHistoryBehindIsNotUsed() {
+        SnapshotCodec server = new SnapshotCodec();
+        SnapshotCodec client = new SnapshotCodec();
+        client.decode(server.encode(snapshot(10)));
+        server.acknowledge(10);
+
+        GameSnapshot snapshot = snapshot(42);
+        byte[] payload = server.encode(snapshot);
+
+        assertEquals(0, baselineOffset(payload));
+        assertSnapshot(snapshot, client.decode(payload));
+    }
+
+    private static GameSnapshot snapshot(long tick) {
+        int t = (int) tick;
+        return new GameSnapshot(tick, 1 + t / 100, t / 40, t / 60, 60 - t * 0.05,
+                t % 50 != 0, false, ArenaType.values()[(t / 100) % ArenaType.values().length],
+                new GameSnapshot.PlayerState(100 + t * 1.5, 200 - t * 0.5, 40 + (t % 10), 3.5, 1.25,
+                        (t % 30) / 10.0, t % 4 == 0, t % 8 == 0, t),
+                new GameSnapshot.PlayerState(600 - t, 300 + Math.sin(t) * 20, 40, 3.0 + (t % 3) * 0.25, 1.0,
+                        0, false, false, t / 2));
+    }
+
+    // второй varint пакета - смещение базы
+    private static long baselineOffset(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        readVarLong(in);
+        return readVarLong(in);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static void assertSnapshot(GameSnapshot expected, GameSnapshot actual) {
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getRoundNumber(), actual.getRoundNumber());
+        assertEquals(expected.getPlayer1Score(), actual.getPlayer1Score());
+        assertEquals(expected.getPlayer2Score(), actual.getPlayer2Score());
+        assertEquals(expected.getRoundTime(), actual.getRoundTime(), 0.1);
+        assertEquals(expected.isGameActive(), actual.isGameActive());
+        assertEquals(expected.isMatchFinished(), actual.isMatchFinished());
+        assertEquals(expected.getArenaType(), actual.getArenaType());
+        assertPlayer(expected.getPlayer1(), actual.getPlayer1());
+        assertPlayer(expected.getPlayer2(), actual.getPlayer2());
+    }
+
+    private static void assertPlayer(GameSnapshot.PlayerState expected, GameSnapshot.PlayerState actual) {
+        assertEquals(expected.getX(), actual.getX(), POSITION_EPSILON);
+        assertEquals(expected.getY(), actual.getY(), POSITION_EPSILON);
+        assertEquals(expected.getSize(), actual.getSize(), FIXED_EPSILON);
+        assertEquals(expected.getSpeed(), actual.getSpeed(), FIXED_EPSILON);
+        assertEquals(expected.getStrength(), actual.getStrength(), FIXED_EPSILON);
+        assertEquals(expected.getPowerUpTimer(), actual.getPowerUpTimer(), 0.001);
+        assertEquals(expected.isPowerUpAvailable(), actual.isPowerUpAvailable());
+        assertEquals(expected.isPowerUpActive(), actual.isPowerUpActive());
+        assertEquals(expected.getLastInputSequence(), actual.getLastInputSequence());
+    }
+}
@@ -0,0 +1,126 @@
+package sumogame.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import sumogame.model.CharacterType;
+import sumogame.model.GameSnapshot;
+import sumogame.network.message.Message;
+import sumogame.network.message.MessageHandler;
+import sumogame.network.message.PlayerMove;
+import sumogame.network.message.SnapshotCodec;
+import sumogame.network.service.LatencyEstimator;
+import sumogame.network.service.LoopbackClientConnection;
+import sumogame.network.service.LoopbackNetworkService;
+import sumogame.network.service.OutboundQueue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Матч комнаты выделенного сервера целиком, без сокетов: клиенты подключены через LoopbackClientConnection
+class MatchRoomLoopbackTest {
+    private static final int TICK_RATE = 60;
+    private static final int SNAPSHOT_RATE = 20;
+
+    @Test
+    @Timeout(60)
+    void playsWholeMatchOverLoopback() throws Exception {
+        TestClient player1 = new TestClient(CharacterType.values()[0]);
+        TestClient player2 = new TestClient(CharacterType.values()[1 % CharacterType.values().length]);
+        CountDownLatch finished = new CountDownLatch(1);
+        MatchRoom room = new MatchRoom(1, player1.connection, player2.connection, TICK_RATE, SNAPSHOT_RATE,
+                finished::countDown);
+
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        ExecutorService closer = Executors.newSingleThreadExecutor();
+        room.start(scheduler, closer);
+        try {
+            // первый игрок стоит слева и каждый раунд сам уходит с арены влево
+            while (!finished.await(1000 / TICK_RATE, TimeUnit.MILLISECONDS)) {
+                player1.move("LEFT");
+            }
+        } finally {
+            scheduler.shutdownNow();
+            closer.shutdown();
+            closer.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(room.isFinished());
+        for (TestClient client : List.of(player1, player2)) {
+            // до двух побед из трех раундов
+            assertEquals(List.of(2, 2), client.roundResults);
+            assertTrue(client.roundStarted);
+            assertTrue(client.snapshots > 0);
+            assertEquals(2, client.lastSnapshot.getPlayer2Score());
+            assertTrue(client.lastSnapshot.isMatchFinished());
+            assertFalse(client.service.isConnected());
+            assertFalse(client.connection.isConnected());
+        }
+
+        // в снимке - номер последнего движения, который применил сервер, а не число сообщений
+        int acknowledged = player1.lastSnapshot.getPlayer1().getLastInputSequence();
+        assertTrue(acknowledged > 0 && acknowledged <= player1.sentSequence,
+                "подтвержден " + acknowledged + " из " + player1.sentSequence);
+        assertEquals(0, player2.lastSnapshot.getPlayer2().getLastInputSequence());
+    }
+
+    // Клиент, который отвечает серверу как игровой: персонаж, PONG, подтверждение снимков
+    private static final class TestClient implements MessageHandler {
+        final CharacterType character;
+        final LoopbackNetworkService service = new LoopbackNetworkService(this, false, 0);
+        final LoopbackClientConnection connection;
+        final SnapshotCodec codec = new SnapshotCodec();
+        final List<Integer> roundResults = new CopyOnWriteArrayList<>();
+        volatile int playerId;
+        volatile boolean roundStarted;
+        volatile int snapshots;
+        volatile GameSnapshot lastSnapshot;
+        int sentSequence;
+
+        TestClient(CharacterType character) {
+            this.character = character;
+            this.connection = LoopbackClientConnection.connect(service, OutboundQueue.staleFromServer(true));
+        }
+
+        void move(String direction) {
+            if (playerId != 0) {
+                service.sendMessage(PlayerMove.create(direction, ++sentSequence, playerId));
+            }
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            switch (message.getType()) {
+                case ASSIGN_PLAYER:
+                    playerId = Integer.parseInt(message.getData());
+                    service.sendMessage(new Message(Message.Type.PLAYER_JOIN, character.name(), playerId));
+                    break;
+                case PING:
+                    service.sendMessage(LatencyEstimator.createPong(message, playerId));
+                    break;
+                case ROUND_START:
+                    roundStarted = true;
+                    break;
+                case STATE_SNAPSHOT:
+                    GameSnapshot snapshot = codec.decode(message.getPayload());
+                    lastSnapshot = snapshot;
+                    snapshots++;
+                    service.sendMessage(new Message(Message.Type.SNAPSHOT_ACK, String.valueOf(snapshot.getTick()), playerId));
+                    break;
+                case ROUND_RESULT:
+                    roundResults.add(Integer.parseInt(message.getData()));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}